@@ -17,90 +17,177 @@
  */
 package de.elomagic.dttool;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import picocli.CommandLine;
 
 import de.elomagic.dttool.configuration.Configuration;
+import de.elomagic.dttool.http.CircuitBreaker;
+import de.elomagic.dttool.http.ContentEncoding;
+import de.elomagic.dttool.http.RateLimiter;
+import de.elomagic.dttool.http.ResponseCache;
+import de.elomagic.dttool.http.RetryPolicy;
 
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 public abstract class AbstractRestClient {
 
     private static final String APPLICATION_JSON = "application/json";
     private static final ConsolePrinter LOGGER = ConsolePrinter.INSTANCE;
-
-    private final ObjectMapper objectMapper = JsonMapperFactory.create();
+    private static final Map<String, CircuitBreaker> HOST_CIRCUIT_BREAKERS = new ConcurrentHashMap<>();
+    private static final Map<Boolean, HttpClient> HTTP_CLIENTS = new ConcurrentHashMap<>();
 
     @CommandLine.Option(names = { "--apiKey", "-k" }, description = "DTrack API Key")
     String apiKey = Configuration.INSTANCE.getApiKey();
     @CommandLine.Option(names = { "--disableTlsCheck" }, description = "Disable TLS certificate check", negatable = true)
     boolean ignoreCertificate;
+    @CommandLine.Option(names = { "--parallelism" }, description = "Maximum count of concurrent requests per DTrack host", defaultValue = "4")
+    int parallelism = 4;
+    @CommandLine.Option(names = { "--cache" }, description = "Cache responses of GET requests in ~/.dt-tool/cache", negatable = true)
+    boolean cache;
+    @CommandLine.Option(names = { "--cacheTtl" }, description = "Seconds a cached response is used without asking DTrack", defaultValue = "300")
+    int cacheTtl = 300;
+    @CommandLine.Option(names = { "--cacheSize" }, description = "Maximum size of the response cache in MiB", defaultValue = "256")
+    int cacheSize = 256;
+
+    @CommandLine.Option(names = { "--retries" }, description = "Maximum count of retries of an idempotent request, when DTrack is unavailable", defaultValue = "3")
+    int retries = 3;
+    @CommandLine.Option(names = { "--rateLimit" }, description = "Maximum count of requests per second to a DTrack host, 0 = unlimited", defaultValue = "0")
+    double rateLimit;
+
+    @CommandLine.Option(names = { "--compression" }, description = "Request compressed responses from DTrack", negatable = true, defaultValue = "true")
+    boolean compression = true;
+    @CommandLine.Option(names = { "--gzipUpload" }, description = "Compress uploaded BOMs with gzip, when DTrack accepts it", negatable = true)
+    boolean gzipUpload;
+
+    Path cacheDirectory = ResponseCache.DEFAULT_DIRECTORY;
+    Duration retryDelay = Duration.ofMillis(500);
 
-    private HttpClient httpClient;
-
-    private HttpClient getHttpClient() {
-        if (httpClient == null) {
-            HttpClient.Builder builder = HttpClient
-                    .newBuilder()
-                    .followRedirects(HttpClient.Redirect.ALWAYS);
-
-            if (ignoreCertificate) {
-                try {
-                    var sslContext = SSLContext.getInstance("TLS");
-                    var trustManager = new X509TrustManager() {
-                        @Override
-                        public X509Certificate[] getAcceptedIssuers() {
-                            return new X509Certificate[]{};
-                        }
-
-                        @SuppressWarnings("squid:S4830")
-                        @Override
-                        public void checkClientTrusted(X509Certificate[] certs, String authType) {
-                            // noop
-                        }
-
-                        @SuppressWarnings("squid:S4830")
-                        @Override
-                        public void checkServerTrusted(X509Certificate[] certs, String authType) {
-                            // noop
-                        }
-                    };
-
-                    sslContext.init(null, new TrustManager[]{trustManager}, new SecureRandom());
-
-                    builder.sslContext(sslContext);
-                } catch (KeyManagementException | NoSuchAlgorithmException ex) {
-                    throw new DtToolException(ex.getMessage());
-                }
+    /**
+     * Requests in flight per host of this client. Sized by the parallelism of the command, which is set after
+     * construction.
+     */
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    /**
+     * Rate limiters per host of this client, configured by the rate limit of the command.
+     */
+    private final Map<String, RateLimiter> hostRateLimiters = new ConcurrentHashMap<>();
+    private ResponseCache responseCache;
+
+    public int getParallelism() {
+        return Math.max(1, parallelism);
+    }
+
+    /**
+     * Returns the HTTP client, which is shared by all REST clients of the process.
+     * <p>
+     * A single client keeps a single connection pool, so concurrent requests reuse established connections and TLS
+     * sessions, or are multiplexed on one HTTP/2 connection. There is one client with and one without TLS certificate
+     * check.
+     */
+    @NonNull
+    HttpClient getHttpClient() {
+        return HTTP_CLIENTS.computeIfAbsent(ignoreCertificate, AbstractRestClient::createHttpClient);
+    }
+
+    @NonNull
+    private static HttpClient createHttpClient(boolean ignoreCertificate) {
+        Configuration configuration = Configuration.INSTANCE;
+        HttpClient.Builder builder = HttpClient
+                .newBuilder()
+                .version(configuration.getHttpVersion())
+                .connectTimeout(configuration.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.ALWAYS);
+
+        if (configuration.isVirtualThreads()) {
+            builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+
+        if (ignoreCertificate) {
+            try {
+                var sslContext = SSLContext.getInstance("TLS");
+                var trustManager = new X509TrustManager() {
+                    @Override
+                    public X509Certificate[] getAcceptedIssuers() {
+                        return new X509Certificate[]{};
+                    }
+
+                    @SuppressWarnings("squid:S4830")
+                    @Override
+                    public void checkClientTrusted(X509Certificate[] certs, String authType) {
+                        // noop
+                    }
+
+                    @SuppressWarnings("squid:S4830")
+                    @Override
+                    public void checkServerTrusted(X509Certificate[] certs, String authType) {
+                        // noop
+                    }
+                };
+
+                sslContext.init(null, new TrustManager[]{trustManager}, new SecureRandom());
+
+                builder.sslContext(sslContext);
+            } catch (KeyManagementException | NoSuchAlgorithmException ex) {
+                throw new DtToolException(ex.getMessage());
             }
+        }
+
+        LOGGER.debug("Creating HTTP client with preferred version {}", configuration.getHttpVersion());
 
-            httpClient = builder.build();
+        return builder.build();
+    }
+
+    @Nullable
+    private synchronized ResponseCache getResponseCache() {
+        if (cache && responseCache == null) {
+            responseCache = new ResponseCache(cacheDirectory, Duration.ofSeconds(cacheTtl), cacheSize * 1024L * 1024L);
         }
 
-        return httpClient;
+        return responseCache;
     }
 
     private HttpRequest.@NonNull Builder createDefaultRequest(@NonNull URI uri) {
-        return HttpRequest
+        HttpRequest.Builder builder = HttpRequest
                 .newBuilder(uri)
                 .setHeader("X-Api-Key", apiKey)
-                .timeout(Duration.ofSeconds(60));
+                .timeout(Configuration.INSTANCE.getRequestTimeout());
+
+        if (compression) {
+            builder.setHeader("Accept-Encoding", ContentEncoding.ACCEPT_ENCODING);
+        }
+
+        if ("http".equalsIgnoreCase(uri.getScheme())) {
+            // HTTP/2 is negotiated on TLS only. Avoids the h2c upgrade attempt on plain connections
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+
+        return builder;
     }
 
     @NonNull
@@ -129,6 +216,19 @@ public abstract class AbstractRestClient {
                 .build();
     }
 
+    @NonNull
+    protected HttpRequest createDefaultDELETE(@NonNull URI uri, HttpRequest.@NonNull BodyPublisher publisher, @NonNull String... headers) {
+        HttpRequest.Builder builder = createDefaultRequest(uri).header("Content-Type", APPLICATION_JSON);
+
+        if (headers.length != 0) {
+            builder = builder.headers(headers);
+        }
+
+        return builder
+                .method("DELETE", publisher)
+                .build();
+    }
+
     @NonNull
     protected HttpRequest createDefaultPUT(@NonNull URI uri, HttpRequest.@NonNull BodyPublisher publisher, @NonNull String... headers) {
         HttpRequest.Builder builder = createDefaultRequest(uri).header("Content-Type", APPLICATION_JSON);
@@ -157,25 +257,232 @@ public abstract class AbstractRestClient {
                 .build();
     }
 
+    /**
+     * Uploads a payload with HTTP PUT, compressed with gzip when enabled.
+     * <p>
+     * The payload is streamed chunk by chunk. When DTrack rejects the compressed payload, it is sent again
+     * uncompressed and compression of uploads is disabled.
+     *
+     * @param uri URI of the resource
+     * @param payload Chunks of the JSON payload, which must be iterable several times
+     * @param contentLength Length of the payload or -1 when unknown
+     * @return Returns the response body
+     * @throws IOException Thrown if an I/ O error occurs when sending or receiving, or the client has shut down
+     * @throws InterruptedException Thrown if the operation is interrupted
+     */
     @NonNull
-    protected String executeRequest(@NonNull HttpRequest request) throws IOException, InterruptedException {
-        HttpClient client = getHttpClient();
+    protected String executeUpload(@NonNull URI uri, @NonNull Iterable<byte[]> payload, long contentLength) throws IOException, InterruptedException {
+        if (gzipUpload) {
+            HttpRequest request = createDefaultPUT(
+                    uri,
+                    HttpRequest.BodyPublishers.ofByteArrays(ContentEncoding.gzip(payload)),
+                    "Content-Encoding", "gzip");
+            try {
+                return executeRequest(request);
+            } catch (HttpStatusException ex) {
+                if (ex.getStatusCode() != 400 && ex.getStatusCode() != 415) {
+                    throw ex;
+                }
+
+                LOGGER.warn("DTrack doesn't accept compressed uploads. Sending uncompressed");
+                gzipUpload = false;
+            }
+        }
+
+        HttpRequest.BodyPublisher publisher = HttpRequest.BodyPublishers.ofByteArrays(payload);
+        if (contentLength > 0) {
+            publisher = HttpRequest.BodyPublishers.fromPublisher(publisher, contentLength);
+        }
+
+        return executeRequest(createDefaultPUT(uri, publisher));
+    }
+
+    /**
+     * Execute a HTTP request and returns the response including status and headers.
+     *
+     * @param request HTTP to be requested
+     * @param bodyHandler Handler of the response body
+     * @return Returns the HTTP response
+     * @param <T> Type of the response body
+     * @throws IOException Thrown if an I/ O error occurs when sending or receiving, or the client has shut down
+     * @throws InterruptedException Thrown if the operation is interrupted
+     */
+    @NonNull
+    protected <T> HttpResponse<T> executeRequest(@NonNull HttpRequest request, HttpResponse.@NonNull BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
+        ResponseCache responses = getResponseCache();
+        boolean get = "GET".equals(request.method());
         try {
             LOGGER.debug("Executing HTTP {} to {}", request.method(), request.uri());
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            HttpResponse<T> response = responses != null && get ? sendCached(responses, request, bodyHandler) : send(request, bodyHandler);
             LOGGER.debug("Responses HTTP status {}", response.statusCode());
             if (!List.of(200, 204, 302).contains(response.statusCode())) {
-                throw new DtToolException("Unexpected HTTP status code %s: Body=%s".formatted(response.statusCode(), response.body()));
+                throw new HttpStatusException(
+                        response.statusCode(),
+                        "Unexpected HTTP status code %s: Body=%s".formatted(response.statusCode(), bodyToString(response.body())));
+            }
+
+            if (responses != null && !get) {
+                // Cached responses might be outdated by the modification
+                responses.invalidate(getModifiedPaths(request));
             }
-            return response.body();
+
+            return response;
         } catch (Exception ex) {
             LOGGER.error("Error on url request '{}' occurred.", request.uri());
             throw ex;
         }
     }
 
+    /**
+     * Returns the paths of the resources, which are modified by a request. Cached responses of these paths and of
+     * all paths below are outdated by the request.
+     *
+     * @param request Modifying request
+     * @return Returns the paths
+     */
+    @NonNull
+    protected Set<String> getModifiedPaths(@NonNull HttpRequest request) {
+        return Set.of(request.uri().getPath());
+    }
+
+    @NonNull
+    private <T> HttpResponse<T> sendCached(
+            @NonNull ResponseCache responses,
+            @NonNull HttpRequest request,
+            HttpResponse.@NonNull BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
+
+        String key = ResponseCache.key(apiKey, request.uri());
+        Optional<ResponseCache.Entry> entry = responses.get(key);
+
+        if (entry.isPresent() && entry.get().isFresh(responses.getTtl())) {
+            LOGGER.debug("Using cached response of {}", request.uri());
+            return entry.get().toResponse(request, bodyHandler);
+        }
+
+        HttpRequest conditionalRequest = entry.map(e -> e.toConditionalRequest(request)).orElse(request);
+        HttpResponse<T> response = send(conditionalRequest, responses.storingHandler(key, request.uri(), bodyHandler));
+
+        if (response.statusCode() == 304 && entry.isPresent()) {
+            LOGGER.debug("Cached response of {} is still valid", request.uri());
+            responses.touch(entry.get());
+            return entry.get().toResponse(request, bodyHandler);
+        }
+
+        return response;
+    }
+
+    /**
+     * Sends a request and repeats idempotent requests, when DTrack is temporary unavailable.
+     */
+    @NonNull
+    private <T> HttpResponse<T> send(@NonNull HttpRequest request, HttpResponse.@NonNull BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
+        String host = "%s:%s".formatted(request.uri().getHost(), request.uri().getPort());
+        RetryPolicy retryPolicy = new RetryPolicy(retries, retryDelay);
+        CircuitBreaker circuitBreaker = HOST_CIRCUIT_BREAKERS.computeIfAbsent(host, k -> new CircuitBreaker("DTrack " + k, 5, Duration.ofSeconds(30)));
+
+        for (int attempt = 0; ; attempt++) {
+            circuitBreaker.check();
+
+            HttpResponse<T> response;
+            try {
+                response = sendOnce(host, request, bodyHandler);
+            } catch (IOException ex) {
+                circuitBreaker.recordFailure();
+                if (!retryPolicy.isRetryable(request.method(), attempt)) {
+                    throw ex;
+                }
+
+                waitForRetry(request, retryPolicy.delay(attempt, null), attempt, retryPolicy, ex.toString());
+                continue;
+            }
+
+            if (!RetryPolicy.isRetryableStatus(response.statusCode())) {
+                circuitBreaker.recordSuccess();
+                return response;
+            }
+
+            if (response.statusCode() != 429) {
+                // Too many requests doesn't mean the server is down
+                circuitBreaker.recordFailure();
+            }
+
+            if (!retryPolicy.isRetryable(request.method(), attempt)) {
+                return response;
+            }
+
+            discard(response.body());
+            Duration delay = retryPolicy.delay(attempt, response.headers().firstValue("Retry-After").orElse(null));
+            waitForRetry(request, delay, attempt, retryPolicy, "HTTP status " + response.statusCode());
+        }
+    }
+
+    @NonNull
+    private <T> HttpResponse<T> sendOnce(@NonNull String host, @NonNull HttpRequest request, HttpResponse.@NonNull BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
+        HttpClient client = getHttpClient();
+        // Requests in flight are limited per host, regardless how many tasks are sending concurrently
+        Semaphore permits = hostPermits.computeIfAbsent(host, k -> new Semaphore(getParallelism()));
+        RateLimiter rateLimiter = hostRateLimiters.computeIfAbsent(host, k -> new RateLimiter(rateLimit));
+
+        rateLimiter.acquire();
+        permits.acquire();
+        try {
+            return client.send(request, ContentEncoding.decoding(bodyHandler));
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void waitForRetry(
+            @NonNull HttpRequest request,
+            @NonNull Duration delay,
+            int attempt,
+            @NonNull RetryPolicy retryPolicy,
+            @NonNull String reason) throws InterruptedException {
+        LOGGER.warn(
+                "HTTP {} to {} failed with {}. Retry {}/{} in {} ms",
+                request.method(),
+                request.uri(),
+                reason,
+                attempt + 1,
+                retryPolicy.getMaxRetries(),
+                delay.toMillis());
+        Thread.sleep(delay);
+    }
+
+    private void discard(@Nullable Object body) {
+        if (body instanceof InputStream in) {
+            try (in) {
+                in.transferTo(OutputStream.nullOutputStream());
+            } catch (IOException ex) {
+                LOGGER.debug("Unable to discard response body: {}", ex.getMessage());
+            }
+        }
+    }
+
+    @NonNull
+    private String bodyToString(@Nullable Object body) {
+        if (body instanceof InputStream in) {
+            try (in) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException ex) {
+                return ex.getMessage();
+            }
+        } else if (body instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return String.valueOf(body);
+    }
+
+    @NonNull
+    protected String executeRequest(@NonNull HttpRequest request) throws IOException, InterruptedException {
+        return executeRequest(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)).body();
+    }
+
     /**
      * Execute a HTTP request and the result JSON body will be mapped into a given class type.
+     * <p>
+     * The body is deserialized while it is received and only buffered when trace logging is enabled.
      *
      * @param request HTTP to be requested
      * @param classType Class type to be mapped
@@ -186,15 +493,38 @@ public abstract class AbstractRestClient {
      */
     @NonNull
     protected <T> T executeRequest(@NonNull HttpRequest request, @NonNull Class<? extends T> classType) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = executeRequest(request, HttpResponse.BodyHandlers.ofInputStream());
+
+        // Failures of the request itself are already logged
         try {
-            String content = executeRequest(request);
+            return readJson(response, classType);
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.error("Unable to read response of url request '{}'.", request.uri());
+            throw ex;
+        }
+    }
 
-            LOGGER.trace("HTTP response body={}", content);
+    /**
+     * Maps the JSON body of a response into a given class type and closes the body.
+     *
+     * @param response HTTP response
+     * @param classType Class type to be mapped
+     * @return Returns instance of class type
+     * @param <T> Class type to be mapped
+     * @throws IOException Thrown if an I/ O error occurs when reading the body or the body is not valid JSON
+     */
+    @NonNull
+    protected <T> T readJson(@NonNull HttpResponse<InputStream> response, @NonNull Class<? extends T> classType) throws IOException {
+        ObjectReader reader = JsonMapperFactory.reader(classType);
+
+        try (InputStream in = response.body()) {
+            if (LOGGER.isTraceEnabled()) {
+                String content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                LOGGER.trace("HTTP response body={}", content);
+                return reader.readValue(content);
+            }
 
-            return objectMapper.readValue(content, classType);
-        } catch (Exception ex) {
-            LOGGER.error("Error on url request '{}' occurred.", request.uri());
-            throw ex;
+            return reader.readValue(in);
         }
     }
 
@@ -27,6 +27,7 @@ import de.elomagic.dttool.commands.CheckLicensesCommand;
 import de.elomagic.dttool.commands.ReportExportCommand;
 import de.elomagic.dttool.commands.TagProjectsCommand;
 import de.elomagic.dttool.commands.UpdateProjectsCommand;
+import de.elomagic.dttool.http.TransferStatistics;
 
 @CommandLine.Command(versionProvider = VersionProvider.class, name = "dt-tool", description = "Dependency Track Tool")
 public class App {
@@ -51,7 +52,11 @@ public class App {
                 .addSubcommand(new TagProjectsCommand())
                 .addSubcommand(new UpdateProjectsCommand());
 
-        return commandLine.execute(args);
+        TransferStatistics.INSTANCE.reset();
+        int exitCode = commandLine.execute(args);
+        TransferStatistics.INSTANCE.logSummary();
+
+        return exitCode;
     }
 
 }
@@ -40,6 +40,26 @@ public final class ComparatorFactory {
                 .thenComparing((Project o) -> new ComparableVersion(o.getVersion())).reversed();
     }
 
+    /**
+     * Sort projects by version asc, e.g. 1.0.0-SNAPSHOT, 1.0.0, 1.0.10.
+     *
+     * @return Returns the {@link Comparator<Project>}
+     */
+    @NonNull
+    public static Comparator<Project> versionComparator() {
+        return Comparator.comparing((Project o) -> new ComparableVersion(String.valueOf(o.getVersion())));
+    }
+
+    /**
+     * Sort projects by the timestamp of the last BOM import asc. Projects without BOM import first.
+     *
+     * @return Returns the {@link Comparator<Project>}
+     */
+    @NonNull
+    public static Comparator<Project> lastBomImportComparator() {
+        return Comparator.comparingLong(Project::getLastBomImportEpochMillis);
+    }
+
     @NonNull
     public static Comparator<ReportDTO> reportComparator() {
         return Comparator.comparing(ReportDTO::flooredBomDate)
@@ -43,6 +43,13 @@ public final class ConsolePrinter {
         this.debug = debug;
     }
 
+    /**
+     * @return Returns true when messages of {@link #trace(String, Object...)} are logged
+     */
+    public boolean isTraceEnabled() {
+        return debug && LOGGER.isTraceEnabled();
+    }
+
     public void trace(@NonNull String message, Object ...args) {
         if (debug) {
             LOGGER.trace(message, args);
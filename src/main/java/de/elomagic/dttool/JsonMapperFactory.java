@@ -19,17 +19,147 @@ package de.elomagic.dttool;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import org.jspecify.annotations.NonNull;
 
+import java.lang.reflect.Type;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Factory and registry of the JSON mapping of DT-Tool.
+ * <p>
+ * Building an {@link ObjectMapper} and resolving the (de)serializers of a type is expensive compared to reading or
+ * writing a single value. Therefore, readers and writers are created once per type and style, and shared within the
+ * process. They are immutable and thread safe.
+ */
 public final class JsonMapperFactory {
 
+    /**
+     * Output style of a writer.
+     */
+    public enum Style {
+        /**
+         * Indented JSON for humans, e.g. files and console output.
+         */
+        PRETTY,
+        /**
+         * JSON without any whitespace, e.g. for request payloads.
+         */
+        COMPACT,
+        /**
+         * Compact JSON, root values separated by a line break, e.g. for newline-delimited JSON (NDJSON).
+         */
+        LINE
+    }
+
+    private record WriterKey(@NonNull Type type, @NonNull Style style) {}
+
+    private static final ObjectMapper SHARED_MAPPER = create();
+    private static final Map<Style, ObjectWriter> WRITERS = new EnumMap<>(Map.of(
+            Style.PRETTY, SHARED_MAPPER
+                    .writer()
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE),
+            Style.COMPACT, SHARED_MAPPER
+                    .writer()
+                    .without(SerializationFeature.INDENT_OUTPUT)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE),
+            Style.LINE, SHARED_MAPPER
+                    .writer()
+                    .without(SerializationFeature.INDENT_OUTPUT)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")));
+    private static final Map<Type, ObjectReader> READERS = new ConcurrentHashMap<>();
+    private static final Map<WriterKey, ObjectWriter> TYPED_WRITERS = new ConcurrentHashMap<>();
+
     private JsonMapperFactory() {}
 
+    /**
+     * Returns a shared and thread safe writer which writes indented JSON.
+     *
+     * @return Returns the writer
+     */
+    @NonNull
+    public static ObjectWriter writer() {
+        return WRITERS.get(Style.PRETTY);
+    }
+
+    /**
+     * Returns a shared and thread safe writer which writes every value compact in a single line, e.g. for
+     * newline-delimited JSON (NDJSON). Root values are separated by a line break.
+     *
+     * @return Returns the writer
+     */
+    @NonNull
+    public static ObjectWriter lineWriter() {
+        return WRITERS.get(Style.LINE);
+    }
+
+    /**
+     * Returns a shared and thread safe writer for values of any type.
+     *
+     * @param style Output style
+     * @return Returns the writer
+     */
+    @NonNull
+    public static ObjectWriter writer(@NonNull Style style) {
+        return WRITERS.get(style);
+    }
+
+    /**
+     * Returns a shared and thread safe writer for values of the given type.
+     * <p>
+     * The serializer of the type is resolved once, when the writer is created.
+     *
+     * @param type Type of the values to write
+     * @param style Output style
+     * @return Returns the writer
+     */
+    @NonNull
+    public static ObjectWriter writer(@NonNull Class<?> type, @NonNull Style style) {
+        return TYPED_WRITERS.computeIfAbsent(new WriterKey(type, style), key -> WRITERS.get(style).forType(type));
+    }
+
+    /**
+     * Returns a shared and thread safe reader for the given type.
+     * <p>
+     * Readers are created once per type, so the deserializer of the type is resolved only once.
+     *
+     * @param type Type of the values to read
+     * @return Returns the reader
+     */
+    @NonNull
+    public static ObjectReader reader(@NonNull Class<?> type) {
+        return READERS.computeIfAbsent(type, key -> SHARED_MAPPER.readerFor(type));
+    }
+
+    /**
+     * Returns a shared and thread safe reader for the given generic type.
+     *
+     * @param type Type of the values to read
+     * @return Returns the reader
+     */
+    @NonNull
+    public static ObjectReader reader(@NonNull TypeReference<?> type) {
+        return READERS.computeIfAbsent(type.getType(), t -> SHARED_MAPPER.readerFor(SHARED_MAPPER.constructType(t)));
+    }
+
+    /**
+     * Creates a new and independent mapper.
+     * <p>
+     * Prefer the shared readers and writers of this factory. Use a new mapper only when it must be configured
+     * differently.
+     *
+     * @return Returns a new mapper
+     */
     @NonNull
     public static ObjectMapper create() {
         ObjectMapper objectMapper = new ObjectMapper();
@@ -0,0 +1,144 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public final class ParallelUtil {
+
+    private ParallelUtil() {}
+
+    /**
+     * Applies a task to each item on virtual threads with a limited count of tasks in flight.
+     * <p>
+     * On the first failing task no further tasks are started, the outstanding tasks are cancelled and the failure is
+     * rethrown.
+     *
+     * @param items Items to process
+     * @param parallelism Maximum count of concurrently running tasks
+     * @param task Task to apply on each item
+     * @return Returns the results in the order of the given items
+     * @param <T> Type of the items
+     * @param <R> Type of the results
+     */
+    @NonNull
+    public static <T, R> List<R> map(@NonNull Collection<T> items, int parallelism, @NonNull Function<T, R> task) {
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        Queue<Future<R>> futures = new ConcurrentLinkedQueue<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                for (T item : items) {
+                    permits.acquire();
+                    if (failure.get() != null) {
+                        break;
+                    }
+
+                    futures.add(executor.submit(() -> {
+                        try {
+                            if (failure.get() != null) {
+                                throw new CancellationException();
+                            }
+
+                            return task.apply(item);
+                        } catch (RuntimeException | Error ex) {
+                            if (failure.compareAndSet(null, ex)) {
+                                futures.forEach(f -> f.cancel(true));
+                            }
+                            throw ex;
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                }
+
+                List<R> results = new ArrayList<>(futures.size());
+                for (Future<R> future : futures) {
+                    results.add(future.get());
+                }
+
+                return results;
+            } catch (InterruptedException ex) {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new DtToolException(ex);
+            } catch (ExecutionException | CancellationException ex) {
+                futures.forEach(f -> f.cancel(true));
+                throw unwrap(failure.get() == null ? ex : failure.get());
+            }
+        }
+    }
+
+    /**
+     * Performs an action for each item on virtual threads with a limited count of actions in flight.
+     *
+     * @param items Items to process
+     * @param parallelism Maximum count of concurrently running actions
+     * @param action Action to perform on each item
+     * @param <T> Type of the items
+     */
+    public static <T> void forEach(@NonNull Collection<T> items, int parallelism, @NonNull Consumer<T> action) {
+        map(items, parallelism, item -> {
+            action.accept(item);
+            return null;
+        });
+    }
+
+    /**
+     * Splits items into consecutive chunks.
+     *
+     * @param items Items to split
+     * @param size Maximum count of items per chunk
+     * @return Returns the chunks in the order of the items
+     * @param <T> Type of the items
+     */
+    @NonNull
+    public static <T> List<List<T>> partition(@NonNull List<T> items, int size) {
+        int chunkSize = Math.max(1, size);
+        List<List<T>> chunks = new ArrayList<>((items.size() + chunkSize - 1) / chunkSize);
+        for (int i = 0; i < items.size(); i += chunkSize) {
+            chunks.add(items.subList(i, Math.min(items.size(), i + chunkSize)));
+        }
+
+        return chunks;
+    }
+
+    @NonNull
+    private static RuntimeException unwrap(@NonNull Throwable ex) {
+        Throwable cause = ex instanceof ExecutionException && ex.getCause() != null ? ex.getCause() : ex;
+
+        return cause instanceof RuntimeException rex ? rex : new DtToolException(cause);
+    }
+
+}
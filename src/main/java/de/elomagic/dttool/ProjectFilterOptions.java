@@ -31,6 +31,8 @@ public class ProjectFilterOptions {
     private Integer notBeforeDays;
     @CommandLine.Option(names = { "--projectFilter", "-pf" }, description = "Project name or UUID filter", split = ",")
     private String[] projectFilter = new String[0];
+    @CommandLine.Option(names = { "--tagFilter", "-tf" }, description = "Project tag filter", split = ",")
+    private String[] tagFilter = new String[0];
     @CommandLine.Option(names = { "--maxCount", "-mc" }, description = "Maximum count of results", defaultValue = "999999")
     private int maxCount;
 
@@ -46,6 +48,10 @@ public class ProjectFilterOptions {
         return Arrays.asList(projectFilter);
     }
 
+    public List<String> getTagFilter() {
+        return Arrays.asList(tagFilter);
+    }
+
     public int getMaxCount() {
         return maxCount;
     }
@@ -33,6 +33,7 @@ import org.jspecify.annotations.Nullable;
 
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class AbstractProjectFilterCommand implements StringFormatter {
 
@@ -57,22 +58,26 @@ public class AbstractProjectFilterCommand implements StringFormatter {
 
     @NonNull
     protected List<Project> fetchProjects(@NonNull ZonedDateTime notBefore, @NonNull ZonedDateTime notAfter, @Nullable String versionMatchRegEx) {
+        List<Project> projects;
+        // Filter while pages arrive, so only matching projects are retained for sorting
+        try (Stream<Project> stream = streamProjects(notBefore, notAfter, versionMatchRegEx)) {
+            projects = stream
+                    .sorted(ComparatorFactory.defaultComparator())
+                    .toList();
+        }
 
-        LOGGER.info("Matching version with pattern: {}", versionMatchRegEx == null ? "<unset>" : versionMatchRegEx);
-        LOGGER.info("Matching projects with name/uid: {}", projectFilterOptions.getProjectFilter().isEmpty() ? "<unset>" : projectFilterOptions.getProjectFilter());
-        LOGGER.info("Matching projects which not before: {}", t2s(notBefore));
-        LOGGER.info("Matching projects which not after: {}", t2s(notAfter));
+        printProjects(projects);
 
-        List<Project> projects = client
-                .fetchAllProjects()
-                .stream()
-                .sorted(ComparatorFactory.defaultComparator())
-                .filter(p -> projectFilterOptions.getProjectFilter().isEmpty() || projectFilterOptions.getProjectFilter().contains(p.getName()) || projectFilterOptions.getProjectFilter().contains(p.getUuid().toString()))
-                .filter(p -> p.getLastBomImport() == null || notBefore.isBefore(p.getLastBomImport()))
-                .filter(p -> p.getLastBomImport() == null || notAfter.isAfter(p.getLastBomImport()))
-                .filter(p -> matchVersion(p, versionMatchRegEx))
-                .toList();
+        return projects;
+
+    }
 
+    /**
+     * Prints name, version and last BOM import of each project and the count of projects.
+     *
+     * @param projects Projects to print
+     */
+    protected void printProjects(@NonNull List<Project> projects) {
         int minimumNameWidth = projects
                 .stream()
                 .filter(p -> p.getName() != null)
@@ -95,9 +100,33 @@ public class AbstractProjectFilterCommand implements StringFormatter {
                         t2s(p.getLastBomImport())));
 
         LOGGER.info("{} projects matched ", projects.size());
+    }
 
-        return projects;
+    /**
+     * Streams the matching projects in the order they arrive, without retaining them.
+     * <p>
+     * The stream holds open connections and must be closed.
+     *
+     * @param notBefore Projects with a last BOM import before are skipped
+     * @param notAfter Projects with a last BOM import after are skipped
+     * @param versionMatchRegEx Optional regular expression the version must match
+     * @return Returns a stream of projects
+     */
+    @NonNull
+    protected Stream<Project> streamProjects(@NonNull ZonedDateTime notBefore, @NonNull ZonedDateTime notAfter, @Nullable String versionMatchRegEx) {
+        LOGGER.info("Matching version with pattern: {}", versionMatchRegEx == null ? "<unset>" : versionMatchRegEx);
+        LOGGER.info("Matching projects with name/uid: {}", projectFilterOptions.getProjectFilter().isEmpty() ? "<unset>" : projectFilterOptions.getProjectFilter());
+        LOGGER.info("Matching projects with tag: {}", projectFilterOptions.getTagFilter().isEmpty() ? "<unset>" : projectFilterOptions.getTagFilter());
+        LOGGER.info("Matching projects which not before: {}", t2s(notBefore));
+        LOGGER.info("Matching projects which not after: {}", t2s(notAfter));
+
+        long notBeforeMillis = notBefore.toInstant().toEpochMilli();
+        long notAfterMillis = notAfter.toInstant().toEpochMilli();
 
+        return ProjectQueryPlanner.query(client, projectFilterOptions)
+                .filter(p -> !p.hasLastBomImport() || p.getLastBomImportEpochMillis() > notBeforeMillis)
+                .filter(p -> !p.hasLastBomImport() || p.getLastBomImportEpochMillis() < notAfterMillis)
+                .filter(p -> matchVersion(p, versionMatchRegEx));
     }
 
     private boolean matchVersion(@NonNull Project project, @Nullable String versionMatchRegEx) {
@@ -0,0 +1,234 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.commands;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import de.elomagic.dttool.ConsolePrinter;
+import de.elomagic.dttool.DtToolException;
+import de.elomagic.dttool.JsonMapperFactory;
+import de.elomagic.dttool.dt.model.Project;
+import de.elomagic.dttool.dto.BomManifestEntryDTO;
+
+import org.jspecify.annotations.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Thread safe manifest of collected BOMs, which is used to collect only BOMs of changed projects.
+ */
+final class BomManifest {
+
+    private static final ConsolePrinter LOGGER = ConsolePrinter.INSTANCE;
+
+    private static final TypeReference<List<BomManifestEntryDTO>> ENTRIES_TYPE = new TypeReference<>() {};
+
+    private final Map<UUID, BomManifestEntryDTO> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Loads a manifest.
+     *
+     * @param file Manifest file
+     * @return Returns the manifest or an empty manifest when the file doesn't exist
+     * @throws IOException Thrown when unable to read the manifest
+     */
+    @NonNull
+    static BomManifest load(@NonNull Path file) throws IOException {
+        BomManifest manifest = new BomManifest();
+
+        if (Files.exists(file)) {
+            List<BomManifestEntryDTO> list = JsonMapperFactory.reader(ENTRIES_TYPE).readValue(file.toFile());
+            list.forEach(e -> manifest.entries.put(e.uuid(), e));
+        }
+
+        return manifest;
+    }
+
+    void save(@NonNull Path file) throws IOException {
+        List<BomManifestEntryDTO> list = entries
+                .values()
+                .stream()
+                .sorted(Comparator.comparing(BomManifestEntryDTO::file))
+                .toList();
+
+        JsonMapperFactory.writer().writeValue(file.toFile(), list);
+    }
+
+    @NonNull
+    Optional<BomManifestEntryDTO> get(@NonNull UUID uuid) {
+        return Optional.ofNullable(entries.get(uuid));
+    }
+
+    /**
+     * Returns true when the BOM of the project was collected after its last BOM import and the file still exists
+     * unchanged.
+     * <p>
+     * A file with the recorded size and modification time is taken as unchanged. Otherwise, or when verifying, the hash
+     * of the file is compared, so a corrupted or modified file is collected again.
+     *
+     * @param project Project
+     * @param target Target folder
+     * @param verify True to compare the hash of every file
+     * @return Returns true when the BOM doesn't have to be collected again
+     * @throws IOException Thrown when unable to read the file
+     */
+    boolean isUpToDate(@NonNull Project project, @NonNull Path target, boolean verify) throws IOException {
+        BomManifestEntryDTO entry = entries.get(project.getUuid());
+
+        if (entry == null || entry.lastBomImport() != project.getLastBomImportEpochMillis()) {
+            return false;
+        }
+
+        Path file = target.resolve(entry.file());
+        if (!Files.exists(file)) {
+            return false;
+        }
+
+        long size = Files.size(file);
+        long lastModified = lastModified(file);
+        if (!verify && entry.size() == size && entry.lastModified() == lastModified) {
+            return true;
+        }
+
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+
+        if (!toHex(digest).equals(entry.sha256())) {
+            LOGGER.warn("BOM {} of project {} {} was modified, collecting it again", entry.file(), project.getName(), project.getVersion());
+            return false;
+        }
+
+        // Content is unchanged, e.g. the file was copied, so the next run doesn't have to hash it again
+        entries.put(entry.uuid(), new BomManifestEntryDTO(
+                entry.uuid(),
+                entry.projectName(),
+                entry.projectVersion(),
+                entry.lastBomImport(),
+                entry.sha256(),
+                entry.file(),
+                size,
+                lastModified));
+
+        return true;
+    }
+
+    /**
+     * Returns true when the file is referenced by an entry.
+     * <p>
+     * Two projects can share a file, e.g. when the filenames of their BOMs collided in a previous run, so a file must
+     * not be deleted as long as another entry references it.
+     *
+     * @param file Name of the file relative to the target
+     * @return Returns true when the file is referenced
+     */
+    boolean isReferenced(@NonNull String file) {
+        return entries.values().stream().anyMatch(e -> e.file().equals(file));
+    }
+
+    /**
+     * Records a collected BOM.
+     *
+     * @param project Project of the BOM
+     * @param file Name of the written file relative to the target
+     * @param sha256 Hash of the written file
+     * @param size Size of the written file
+     * @param lastModified Last modification of the written file in epoch seconds
+     * @return Returns the file of the previous entry, when it differs to the new file
+     */
+    @NonNull
+    Optional<String> put(@NonNull Project project, @NonNull String file, @NonNull String sha256, long size, long lastModified) {
+        BomManifestEntryDTO previous = entries.put(project.getUuid(), new BomManifestEntryDTO(
+                project.getUuid(),
+                project.getName(),
+                project.getVersion(),
+                project.getLastBomImportEpochMillis(),
+                sha256,
+                file,
+                size,
+                lastModified));
+
+        return Optional.ofNullable(previous).map(BomManifestEntryDTO::file).filter(f -> !f.equals(file));
+    }
+
+    /**
+     * Removes all entries of projects which are not in the given collection anymore.
+     *
+     * @param projects Current projects
+     * @return Returns the removed entries
+     */
+    @NonNull
+    List<BomManifestEntryDTO> retainAll(@NonNull Collection<Project> projects) {
+        Set<UUID> uuids = projects.stream().map(Project::getUuid).collect(Collectors.toSet());
+
+        List<BomManifestEntryDTO> removed = entries
+                .values()
+                .stream()
+                .filter(e -> !uuids.contains(e.uuid()))
+                .toList();
+
+        removed.forEach(e -> entries.remove(e.uuid()));
+
+        return removed;
+    }
+
+    /**
+     * Returns the last modification of a file in epoch seconds, which is the precision of an entry of a ZIP file.
+     *
+     * @param file File
+     * @return Returns epoch seconds
+     * @throws IOException Thrown when unable to read the attributes of the file
+     */
+    static long lastModified(@NonNull Path file) throws IOException {
+        return Files.getLastModifiedTime(file).to(TimeUnit.SECONDS);
+    }
+
+    @NonNull
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new DtToolException(ex);
+        }
+    }
+
+    @NonNull
+    static String toHex(@NonNull MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+}
@@ -24,6 +24,7 @@ import de.elomagic.dttool.ConsolePrinter;
 import de.elomagic.dttool.ConsoleUtils;
 import de.elomagic.dttool.DtToolException;
 import de.elomagic.dttool.OptionsParams;
+import de.elomagic.dttool.ParallelUtil;
 import de.elomagic.dttool.configuration.Configuration;
 import de.elomagic.dttool.configuration.model.PatchRule;
 import de.elomagic.dttool.dt.model.Component;
@@ -32,12 +33,12 @@ import de.elomagic.dttool.spdx.SpdxLicenseManager;
 
 import org.jspecify.annotations.NonNull;
 
-import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @CommandLine.Command(name = "check-licenses", description = "Check or patch unset licenses")
 public class CheckLicensesCommand extends AbstractProjectFilterCommand implements Callable<Void>  {
@@ -56,16 +57,17 @@ public class CheckLicensesCommand extends AbstractProjectFilterCommand implement
         LOGGER.info("Project name filter: {}", projectFilterOptions.getProjectFilter());
         LOGGER.info("Configured patch rules: {}", Configuration.getPatchRules().size());
 
-        Set<Component> unset = fetchProjectsUnsetComponentsLicenseId();
+        PurlIndex unset = fetchProjectsUnsetComponentsLicenseId();
 
-        unset.forEach(c -> LOGGER.info(
+        unset.entries().stream().flatMap(e -> e.occurrences().stream()).forEach(c -> LOGGER.info(
                 "Component '{}' of project {} version {} has not license ID.",
                 c.getPurl(),
                 c.getProject() == null ? "unknown" : c.getProject().getName(),
                 c.getProject() == null ? "???" : c.getProject().getVersion()
             ));
 
-        LOGGER.always("Found {} components with unset license IDs", unset.size());
+        LOGGER.always("Found {} components with unset license IDs", unset.componentCount());
+        LOGGER.info("Found {} distinct purls with unset license IDs", unset.entries().size());
 
         if (unset.isEmpty() || !patch) {
             return null;
@@ -87,15 +89,20 @@ public class CheckLicensesCommand extends AbstractProjectFilterCommand implement
     @NonNull
     private Optional<PatchRule> containsRule(@NonNull String purl) {
         return Configuration
-                .getPatchRules()
-                .stream()
-                .filter(r -> purl.matches(r.getMatchPurl()))
-                .findFirst();
+                .getPatchRuleMatcher()
+                .findFirst(purl);
     }
 
-    private void patchComponent(@NonNull Component component, @NonNull String licenseId) {
+    /**
+     * Patch all occurrences of a purl. The patch rule is evaluated once per purl, but every component is patched on its
+     * own JSON, because the components of different project versions have their own description, hashes, notes etc.
+     */
+    private void patchComponent(PurlIndex.@NonNull Entry entry, @NonNull String licenseId) {
+        LOGGER.always("Patching component '{}' with license ID '{}'", entry.purl(), licenseId);
+        ParallelUtil.forEach(entry.occurrences(), client.getParallelism(), component -> patchComponent(component, licenseId));
+    }
 
-        LOGGER.always("Patching component '{}' with license ID '{}'", component.getPurl(), licenseId);
+    private void patchComponent(@NonNull Component component, @NonNull String licenseId) {
         try {
             // Patch original JSON string
             ObjectNode root = (ObjectNode) client.fetchComponentAsJson(component);
@@ -103,7 +110,7 @@ public class CheckLicensesCommand extends AbstractProjectFilterCommand implement
             root.remove("licenseExpression");
 
             // Post patched JSON
-            LOGGER.info("Updating component '{}'", component.getPurl());
+            LOGGER.info("Updating component '{}' {}", component.getPurl(), component.getUuid());
             Component c = client.updateComponent(root);
 
             if (c.getResolvedLicense() == null) {
@@ -115,7 +122,7 @@ public class CheckLicensesCommand extends AbstractProjectFilterCommand implement
 
     }
 
-    private void patchComponents(@NonNull Set<Component> components) {
+    private void patchComponents(@NonNull PurlIndex index) {
         LOGGER.info("Validating license IDs in {} patch rules", Configuration.getPatchRules().size());
         Configuration
                 .getPatchRules()
@@ -126,28 +133,26 @@ public class CheckLicensesCommand extends AbstractProjectFilterCommand implement
                     throw new DtToolException("License ID '%s' in patch rules '%s' doesn't exist.".formatted(r.getLicenseId(), r.getMatchPurl()));
                 });
 
-        components
-                .stream()
-                .filter(c -> c.getResolvedLicense() == null)
-                .forEach(c -> containsRule(c.getPurl())
+        index
+                .entries()
+                .forEach(e -> Optional.ofNullable(e.purl())
+                        .flatMap(this::containsRule)
                         .ifPresentOrElse(
-                                r -> patchComponent(c, r.getLicenseId()),
-                                () -> LOGGER.always("No patching rule for component '{}' found.", c.getPurl())
+                                r -> patchComponent(e, r.getLicenseId()),
+                                () -> LOGGER.always("No patching rule for component '{}' found.", e.purl())
                         )
                 );
     }
 
-    private boolean filterOnIgnoreConf(Component c) {
-        String purl = c.getPurl();
-
+    private boolean isIgnored(@NonNull String purl) {
         return Configuration
                 .INSTANCE
-                .getIgnorePurl()
-                .stream()
-                .noneMatch(purl::matches);
+                .getIgnorePurlMatcher()
+                .matchesAny(purl);
     }
 
-    private Set<Component> fetchProjectsUnsetComponentsLicenseId() {
+    @NonNull
+    private PurlIndex fetchProjectsUnsetComponentsLicenseId() {
 
         List<Project> projects = fetchProjects(
                 getNotBeforeInZonedTime(30),
@@ -158,15 +163,19 @@ public class CheckLicensesCommand extends AbstractProjectFilterCommand implement
             LOGGER.info("Checking license components of {} project versions, this process can take a while.", projects.size());
         }
 
-        Set<Component> unsetComponents = new HashSet<>();
-        for (Project project : projects) {
-            unsetComponents.addAll(
-                    client.fetchComponents(project)
-                            .filter(c -> c.getResolvedLicense() == null)
-                            .filter(this::filterOnIgnoreConf)
-                            .collect(Collectors.toSet())
-            );
-        }
+        PurlIndex unsetComponents = new PurlIndex();
+        // Evaluate ignore list only once per purl
+        Map<String, Boolean> ignoredPurls = new ConcurrentHashMap<>();
+        AtomicInteger checked = new AtomicInteger();
+
+        ParallelUtil.forEach(projects, client.getParallelism(), project -> {
+            client.fetchComponents(project)
+                    .filter(c -> c.getResolvedLicense() == null)
+                    .filter(c -> c.getPurl() == null || !ignoredPurls.computeIfAbsent(c.getPurl(), this::isIgnored))
+                    .forEach(unsetComponents::add);
+
+            LOGGER.info("Checked components of {}/{} project versions", checked.incrementAndGet(), projects.size());
+        });
 
         return unsetComponents;
 
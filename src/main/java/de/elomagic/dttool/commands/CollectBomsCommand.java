@@ -19,30 +19,76 @@ package de.elomagic.dttool.commands;
 
 import picocli.CommandLine;
 
+import de.elomagic.dttool.ConsolePrinter;
 import de.elomagic.dttool.DtToolException;
+import de.elomagic.dttool.ParallelUtil;
+import de.elomagic.dttool.dt.DTrackClient;
 import de.elomagic.dttool.dt.model.Project;
+import de.elomagic.dttool.dto.BomManifestEntryDTO;
 
+import org.apache.commons.io.IOUtils;
 import org.cyclonedx.Version;
 import org.cyclonedx.exception.GeneratorException;
 import org.cyclonedx.generators.BomGeneratorFactory;
 import org.cyclonedx.model.Bom;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 @CommandLine.Command(name = "collect-boms", description = "Collect BOMs of projects")
 public class CollectBomsCommand extends AbstractProjectFilterCommand implements Callable<Void> {
 
+    private static final ConsolePrinter LOGGER = ConsolePrinter.INSTANCE;
+    private static final String MANIFEST_FILENAME = ".dt-tool-manifest.json";
+    private static final String MANIFEST_SUFFIX = ".manifest.json";
+
+    /**
+     * A BOM which is ready to be written.
+     *
+     * @param project Project of the BOM
+     * @param filename Filename of the BOM in the target
+     * @param content Content of the BOM
+     */
+    private record BomEntry(@NonNull Project project, @NonNull String filename, byte @NonNull [] content) {}
+
+    @FunctionalInterface
+    private interface BomWriter {
+        void write(@NonNull BomEntry entry) throws IOException;
+    }
+
     @CommandLine.Option(
             names = { "-fp", "--filePattern" },
             description = "Target file pattern, %1 -> Filename, %2 -> Version",
@@ -56,6 +102,32 @@ public class CollectBomsCommand extends AbstractProjectFilterCommand implements
             required = true
     )
     private Path path;
+    @CommandLine.Option(
+            names = { "--raw" },
+            description = "Write the BOMs as returned by DTrack without parsing and regenerating them. " +
+                    "The filename is created of project name and version",
+            defaultValue = "false"
+    )
+    private boolean raw;
+    @CommandLine.Option(
+            names = { "--incremental" },
+            description = "Collect only BOMs of projects with a new BOM import since the last run, according to a manifest " +
+                    "next to the target. BOMs of projects which are not matched anymore will be removed",
+            defaultValue = "false"
+    )
+    private boolean incremental;
+    @CommandLine.Option(
+            names = { "--verify" },
+            description = "Compare the hash of every BOM of the previous run when collecting incrementally, instead of only " +
+                    "its size and modification time",
+            defaultValue = "false"
+    )
+    private boolean verify;
+
+    /**
+     * Filenames which are used by a project of this run, to detect projects whose BOMs would overwrite each other.
+     */
+    private final Map<String, UUID> filenames = new ConcurrentHashMap<>();
 
     @Override
     public Void call() throws Exception {
@@ -74,48 +146,279 @@ public class CollectBomsCommand extends AbstractProjectFilterCommand implements
             if (parent != null) {
                 Files.createDirectories(parent);
             }
-
-            writeIntoZIP(projects, path);
         } else {
             Files.createDirectories(path);
+        }
 
+        if (incremental) {
+            writeIncremental(projects, compressed);
+        } else if (compressed && raw) {
+            writeRawIntoZIP(projects, path);
+        } else if (compressed) {
+            writeIntoZIP(projects, path);
+        } else if (raw) {
+            writeRawIntoFolder(projects, path);
+        } else {
             writeIntoFolder(projects, path);
         }
 
         return null;
     }
 
-    private void writeIntoFolder(List<Project> projects, Path target) {
-        projects.forEach(project -> {
+    private void writeIntoFolder(@NonNull List<Project> projects, @NonNull Path target) {
+        // Files are written by parallel writers, so nothing is left to do in the order of the projects
+        collect(projects, entry -> Files.write(target.resolve(entry.filename()), entry.content()), entry -> {});
+    }
+
+    private void writeIntoZIP(@NonNull List<Project> projects, @NonNull Path target) throws IOException {
+
+        try (FileOutputStream fos = new FileOutputStream(target.toFile());
+             ZipOutputStream zipOut = new ZipOutputStream(fos)) {
+
+            // A ZIP stream can be written only by a single writer in the order of the projects
+            collect(projects, null, entry -> {
+                ZipEntry zipEntry = new ZipEntry(entry.filename());
+                zipOut.putNextEntry(zipEntry);
+                zipOut.write(entry.content());
+                zipOut.closeEntry();
+            });
+        }
+
+    }
+
+    private void writeRawIntoFolder(@NonNull List<Project> projects, @NonNull Path target) {
+        long start = System.nanoTime();
+        AtomicLong bytes = new AtomicLong();
+
+        // Response bodies are streamed into the files without holding them in memory
+        ParallelUtil.forEach(projects, client.getParallelism(), project ->
+                bytes.addAndGet(client.downloadProjectBom(project, target.resolve(reserveFilename(project, createFilename(project))))));
+
+        logSummary(projects.size(), bytes.get(), start);
+    }
+
+    private void writeRawIntoZIP(@NonNull List<Project> projects, @NonNull Path target) throws IOException {
+        int capacity = client.getParallelism();
+        Deque<CompletableFuture<InputStream>> queue = new ArrayDeque<>(capacity);
+        Iterator<Project> iterator = projects.iterator();
+
+        long start = System.nanoTime();
+        long bytes = 0;
+
+        try (ExecutorService ioExecutor = Executors.newVirtualThreadPerTaskExecutor();
+             FileOutputStream fos = new FileOutputStream(target.toFile());
+             ZipOutputStream zipOut = new ZipOutputStream(fos)) {
             try {
-                Bom bom = client.fetchProjectBom(project);
+                // Responses of the next projects are opened while the body of the current one is copied
+                for (Project project : projects) {
+                    while (iterator.hasNext() && queue.size() < capacity) {
+                        Project next = iterator.next();
+                        queue.add(CompletableFuture.supplyAsync(() -> client.openProjectBom(next), ioExecutor));
+                    }
+
+                    try (InputStream in = queue.remove().join()) {
+                        zipOut.putNextEntry(new ZipEntry(reserveFilename(project, createFilename(project))));
+                        bytes += in.transferTo(zipOut);
+                        zipOut.closeEntry();
+                    }
+                }
+            } catch (RuntimeException | IOException ex) {
+                // Release the connections of responses which are already opened
+                queue.forEach(f -> f.thenAccept(IOUtils::closeQuietly));
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                throw cause instanceof DtToolException dex ? dex : new DtToolException(cause);
+            }
+        }
+
+        logSummary(projects.size(), bytes, start);
+    }
+
+    /**
+     * Collects only the BOMs of projects which changed since the last run.
+     * <p>
+     * The manifest is stored in the target folder or next to the ZIP file. Entries of a ZIP file are updated in place
+     * by the ZIP file system, so unchanged entries are kept as they are.
+     *
+     * @param projects Currently matched projects
+     * @param compressed True when the target is a ZIP file
+     * @throws IOException Thrown when unable to read or write the target or the manifest
+     */
+    private void writeIncremental(@NonNull List<Project> projects, boolean compressed) throws IOException {
+        Path manifestFile = compressed ? path.resolveSibling(path.getFileName() + MANIFEST_SUFFIX) : path.resolve(MANIFEST_FILENAME);
+        // Manifest is worthless without its archive
+        BomManifest manifest = !compressed || Files.exists(path) ? BomManifest.load(manifestFile) : new BomManifest();
+
+        try {
+            try (FileSystem zipFileSystem = compressed ? FileSystems.newFileSystem(path, Map.of("create", "true")) : null) {
+                Path target = zipFileSystem == null ? path : zipFileSystem.getPath("/");
+
+                for (BomManifestEntryDTO removed : manifest.retainAll(projects)) {
+                    if (manifest.isReferenced(removed.file())) {
+                        LOGGER.info("Keeping BOM {} of removed project {} {}, which is still used by another project", removed.file(), removed.projectName(), removed.projectVersion());
+                    } else {
+                        LOGGER.info("Removing BOM {} of project {} {}", removed.file(), removed.projectName(), removed.projectVersion());
+                        Files.deleteIfExists(target.resolve(removed.file()));
+                    }
+                }
 
-                Path targetFile = target.resolve(createFilename(bom));
+                List<Project> changed = new ArrayList<>();
+                for (Project project : projects) {
+                    if (!manifest.isUpToDate(project, target, verify)) {
+                        changed.add(project);
+                    }
+                }
 
-                Files.writeString(targetFile, getBomAsJson(bom));
-            } catch (Exception ex) {
-                throw new DtToolException(ex);
+                // Files of unchanged BOMs are kept, so changed BOMs must not be written into them
+                Set<UUID> changedUuids = changed.stream().map(Project::getUuid).collect(Collectors.toSet());
+                projects
+                        .stream()
+                        .filter(p -> !changedUuids.contains(p.getUuid()))
+                        .forEach(p -> manifest.get(p.getUuid()).ifPresent(e -> filenames.put(e.file(), p.getUuid())));
+
+                LOGGER.info("{} of {} BOMs changed since last run", changed.size(), projects.size());
+
+                if (raw) {
+                    long start = System.nanoTime();
+                    AtomicLong bytes = new AtomicLong();
+                    ParallelUtil.forEach(changed, client.getParallelism(), project ->
+                            bytes.addAndGet(copyRaw(project, target, manifest)));
+                    logSummary(changed.size(), bytes.get(), start);
+                } else {
+                    collect(changed, entry -> {
+                        Files.write(target.resolve(entry.filename()), entry.content());
+
+                        MessageDigest digest = BomManifest.newDigest();
+                        digest.update(entry.content());
+                        record(manifest, entry.project(), target, entry.filename(), BomManifest.toHex(digest));
+                    }, entry -> {});
+                }
             }
-        });
+        } finally {
+            // Keep the progress, even when collecting failed
+            manifest.save(manifestFile);
+        }
     }
 
-    private void writeIntoZIP(List<Project> projects, Path target) throws IOException, GeneratorException {
+    private long copyRaw(@NonNull Project project, @NonNull Path target, @NonNull BomManifest manifest) {
+        String filename = reserveFilename(project, createFilename(project));
+        MessageDigest digest = BomManifest.newDigest();
 
-        try (FileOutputStream fos = new FileOutputStream(target.toFile());
-             ZipOutputStream zipOut = new ZipOutputStream(fos)) {
+        try (InputStream in = new DigestInputStream(client.openProjectBom(project), digest)) {
+            long size = Files.copy(in, target.resolve(filename), StandardCopyOption.REPLACE_EXISTING);
+            record(manifest, project, target, filename, BomManifest.toHex(digest));
+            return size;
+        } catch (IOException ex) {
+            throw new DtToolException(ex);
+        }
+    }
 
-            for (Project project : projects) {
-                Bom bom = client.fetchProjectBom(project);
+    private void record(
+            @NonNull BomManifest manifest,
+            @NonNull Project project,
+            @NonNull Path target,
+            @NonNull String filename,
+            @NonNull String sha256) throws IOException {
+        // Filename might change with the name or version of the project
+        Path file = target.resolve(filename);
+        Optional<String> previousFile = manifest.put(project, filename, sha256, Files.size(file), BomManifest.lastModified(file));
+        // Previous file might be used by another project meanwhile
+        if (previousFile.isPresent() && !filenames.containsKey(previousFile.get()) && !manifest.isReferenced(previousFile.get())) {
+            Files.deleteIfExists(target.resolve(previousFile.get()));
+        }
+    }
 
-                String json = getBomAsJson(bom);
+    /**
+     * Collects the BOMs of the projects in a pipeline.
+     * <p>
+     * BOMs are fetched concurrently on virtual threads, limited by the parallelism of the client, then parsed and
+     * regenerated by a worker per CPU and optionally written by parallel writers. The count of BOMs in the pipeline is
+     * bounded, so fetching pauses when the writers fall behind.
+     *
+     * @param projects Projects of the BOMs
+     * @param parallelWriter Optional writer which is called concurrently
+     * @param orderedWriter Writer which is called sequentially in the order of the projects
+     */
+    private void collect(@NonNull List<Project> projects, @Nullable BomWriter parallelWriter, @NonNull BomWriter orderedWriter) {
+        int capacity = client.getParallelism() * 2 + Runtime.getRuntime().availableProcessors();
+        Deque<CompletableFuture<BomEntry>> queue = new ArrayDeque<>(capacity);
+        Iterator<Project> iterator = projects.iterator();
 
-                ZipEntry zipEntry = new ZipEntry(createFilename(bom));
-                zipOut.putNextEntry(zipEntry);
-                zipOut.write(json.getBytes(StandardCharsets.UTF_8));
-                zipOut.flush();
+        long start = System.nanoTime();
+        long bytes = 0;
+        int count = 0;
+
+        try (ExecutorService ioExecutor = Executors.newVirtualThreadPerTaskExecutor();
+             ExecutorService cpuExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())) {
+            try {
+                while (iterator.hasNext() || !queue.isEmpty()) {
+                    while (iterator.hasNext() && queue.size() < capacity) {
+                        queue.add(submit(iterator.next(), parallelWriter, ioExecutor, cpuExecutor));
+                    }
+
+                    BomEntry entry = queue.remove().join();
+                    orderedWriter.write(entry);
+
+                    bytes += entry.content().length;
+                    count++;
+                    LOGGER.debug("Collected BOM {}/{} {}", count, projects.size(), entry.filename());
+                }
+            } catch (RuntimeException | IOException ex) {
+                // Don't wait for BOMs in flight, when closing the executors
+                queue.forEach(f -> f.cancel(true));
+                ioExecutor.shutdownNow();
+                cpuExecutor.shutdownNow();
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                throw cause instanceof DtToolException dex ? dex : new DtToolException(cause);
             }
         }
 
+        logSummary(count, bytes, start);
+    }
+
+    private void logSummary(int count, long bytes, long start) {
+        double seconds = Math.max(1, System.nanoTime() - start) / 1_000_000_000d;
+        LOGGER.info(
+                "Collected {} BOMs with {} KiB in {} s ({} BOMs/s)",
+                count,
+                bytes / 1024,
+                "%.1f".formatted(seconds),
+                "%.1f".formatted(count / seconds));
+    }
+
+    @NonNull
+    private CompletableFuture<BomEntry> submit(
+            @NonNull Project project,
+            @Nullable BomWriter parallelWriter,
+            @NonNull ExecutorService ioExecutor,
+            @NonNull ExecutorService cpuExecutor) {
+
+        CompletableFuture<BomEntry> future = CompletableFuture
+                .supplyAsync(() -> client.fetchProjectBomContent(project), ioExecutor)
+                .thenApplyAsync(content -> createEntry(project, content), cpuExecutor);
+
+        if (parallelWriter == null) {
+            return future;
+        }
+
+        return future.thenApplyAsync(entry -> {
+            try {
+                parallelWriter.write(entry);
+                return entry;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, ioExecutor);
+    }
+
+    @NonNull
+    private BomEntry createEntry(@NonNull Project project, byte @NonNull [] content) {
+        try {
+            Bom bom = DTrackClient.parseBom(content);
+
+            return new BomEntry(project, reserveFilename(project, createFilename(bom)), getBomAsJson(bom).getBytes(StandardCharsets.UTF_8));
+        } catch (GeneratorException ex) {
+            throw new DtToolException(ex);
+        }
     }
 
     @NonNull
@@ -129,6 +432,45 @@ public class CollectBomsCommand extends AbstractProjectFilterCommand implements
         return BomGeneratorFactory.createJson(version, bom).toJsonString();
     }
 
+    /**
+     * Reserves the filename of the BOM of a project for this run.
+     * <p>
+     * When the filename is already used by another project, e.g. because the pattern doesn't contain the version, the
+     * UUID of the project is appended to the filename, so the BOMs don't overwrite each other.
+     *
+     * @param project Project of the BOM
+     * @param filename Filename created by the pattern
+     * @return Returns the filename to write the BOM into
+     */
+    @NonNull
+    private String reserveFilename(@NonNull Project project, @NonNull String filename) {
+        UUID owner = filenames.putIfAbsent(filename, project.getUuid());
+        if (owner == null || owner.equals(project.getUuid())) {
+            return filename;
+        }
+
+        int extension = filename.lastIndexOf('.');
+        String unique = extension > 0
+                ? "%s-%s%s".formatted(filename.substring(0, extension), project.getUuid(), filename.substring(extension))
+                : "%s-%s".formatted(filename, project.getUuid());
+
+        LOGGER.warn(
+                "BOM filename '{}' of project {} {} is already used by project {}, writing '{}' instead",
+                filename,
+                project.getName(),
+                project.getVersion(),
+                owner,
+                unique);
+        filenames.put(unique, project.getUuid());
+
+        return unique;
+    }
+
+    @NonNull
+    private String createFilename(@NonNull Project project) {
+        return pattern.formatted(project.getName(), project.getVersion());
+    }
+
     @NonNull
     private String createFilename(@NonNull Bom bom) {
         return pattern.formatted(
@@ -0,0 +1,223 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.commands;
+
+import de.elomagic.dttool.ConsolePrinter;
+import de.elomagic.dttool.DtToolException;
+import de.elomagic.dttool.dt.model.Project;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Write-ahead journal of a bulk delete.
+ * <p>
+ * All projects to delete are recorded as planned before the first one is deleted. Every deleted project is recorded
+ * as done immediately, so an interrupted bulk delete can be resumed with the pending projects, without fetching the
+ * projects again. The journal is a text file with one record per line and is only appended.
+ */
+final class DeleteJournal implements Closeable {
+
+    private static final ConsolePrinter LOGGER = ConsolePrinter.INSTANCE;
+
+    private static final String PLANNED = "PLANNED";
+    private static final String DONE = "DONE";
+    private static final String FAILED = "FAILED";
+
+    /**
+     * Project to delete.
+     *
+     * @param uuid UUID of the project
+     * @param name Name of the project
+     * @param version Version of the project
+     */
+    record Entry(@NonNull UUID uuid, @NonNull String name, @NonNull String version) {}
+
+    private final Path file;
+    private final List<Entry> pending;
+    private BufferedWriter writer;
+
+    private DeleteJournal(@NonNull Path file, @NonNull List<Entry> pending) {
+        this.file = file;
+        this.pending = pending;
+    }
+
+    /**
+     * Creates a new journal of the given projects.
+     *
+     * @param file Journal file, which will be replaced
+     * @param projects Projects to delete
+     * @return Returns the journal
+     * @throws IOException Thrown when unable to write the journal
+     */
+    @NonNull
+    static DeleteJournal create(@NonNull Path file, @NonNull List<Project> projects) throws IOException {
+        List<Entry> entries = projects
+                .stream()
+                .map(p -> new Entry(p.getUuid(), String.valueOf(p.getName()), String.valueOf(p.getVersion())))
+                .toList();
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.deleteIfExists(file);
+
+        DeleteJournal journal = new DeleteJournal(file, entries);
+        for (Entry entry : entries) {
+            journal.writer().write(String.join("\t", PLANNED, entry.uuid().toString(), clean(entry.name()), clean(entry.version())));
+            journal.writer().newLine();
+        }
+        journal.writer().flush();
+
+        return journal;
+    }
+
+    /**
+     * Opens an existing journal to resume a bulk delete.
+     *
+     * @param file Journal file
+     * @return Returns the journal
+     * @throws IOException Thrown when unable to read the journal
+     */
+    @NonNull
+    static DeleteJournal open(@NonNull Path file) throws IOException {
+        if (Files.notExists(file)) {
+            throw new DtToolException("Journal '%s' doesn't exist. Nothing to resume.".formatted(file));
+        }
+
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+
+        Map<UUID, Entry> planned = new LinkedHashMap<>();
+        for (String line : content.lines().toList()) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length < 2) {
+                // Might be a partially written last line of an interrupted run
+                continue;
+            }
+
+            UUID uuid = parseUuid(fields[1]);
+            if (uuid == null) {
+                // Might be a partially written last line of an interrupted run
+                LOGGER.warn("Skipping invalid line '{}' of journal '{}'", line, file);
+                continue;
+            }
+
+            switch (fields[0]) {
+                case PLANNED -> {
+                    if (fields.length == 4) {
+                        planned.put(uuid, new Entry(uuid, fields[2], fields[3]));
+                    }
+                }
+                case DONE -> planned.remove(uuid);
+                default -> {
+                    // Failed deletes will be repeated
+                }
+            }
+        }
+
+        if (!content.isEmpty() && !content.endsWith("\n")) {
+            // Records of this run must not be appended to a partially written last line
+            Files.writeString(file, System.lineSeparator(), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        }
+
+        return new DeleteJournal(file, List.copyOf(planned.values()));
+    }
+
+    /**
+     * @return Returns the projects which are not deleted yet, in the planned order
+     */
+    @NonNull
+    List<Entry> getPending() {
+        return pending;
+    }
+
+    synchronized void done(@NonNull UUID uuid) throws IOException {
+        append(String.join("\t", DONE, uuid.toString()));
+    }
+
+    synchronized void failed(@NonNull UUID uuid, @NonNull String reason) throws IOException {
+        append(String.join("\t", FAILED, uuid.toString(), clean(reason)));
+    }
+
+    private void append(@NonNull String record) throws IOException {
+        // Flushed immediately, so the record survives when the process dies
+        writer().write(record);
+        writer().newLine();
+        writer().flush();
+    }
+
+    @NonNull
+    private BufferedWriter writer() throws IOException {
+        if (writer == null) {
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        return writer;
+    }
+
+    /**
+     * Closes and removes the journal, e.g. after all projects are deleted.
+     *
+     * @throws IOException Thrown when unable to remove the journal
+     */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    @Nullable
+    private static UUID parseUuid(@NonNull String value) {
+        // UUID.fromString accepts shortened groups, so a truncated UUID would be parsed as another UUID
+        if (value.length() != 36) {
+            return null;
+        }
+
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    @NonNull
+    private static String clean(@NonNull String value) {
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+}
@@ -19,16 +19,32 @@ package de.elomagic.dttool.commands;
 
 import picocli.CommandLine;
 
+import de.elomagic.dttool.ConsolePrinter;
 import de.elomagic.dttool.ConsoleUtils;
+import de.elomagic.dttool.DtToolException;
+import de.elomagic.dttool.HttpStatusException;
 import de.elomagic.dttool.OptionsParams;
+import de.elomagic.dttool.ParallelUtil;
+import de.elomagic.dttool.configuration.Configuration;
+import de.elomagic.dttool.configuration.model.RetentionRule;
 import de.elomagic.dttool.dt.model.Project;
 
+import org.jspecify.annotations.NonNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 @CommandLine.Command(name = "delete-projects", description = "Delete projects")
 public class DeleteProjectCommand extends AbstractProjectFilterCommand implements Callable<Void> {
 
+    private static final ConsolePrinter LOGGER = ConsolePrinter.INSTANCE;
+
     @CommandLine.Option(
             names = { OptionsParams.BATCH_MODE, OptionsParams.BATCH_MODE_SHORT },
             negatable = true,
@@ -40,25 +56,176 @@ public class DeleteProjectCommand extends AbstractProjectFilterCommand implement
             defaultValue = "^\\d+(\\.\\d+)*(-.*)?-(SNAPSHOT|(b\\d{4}))$"
     )
     private String versionMatch;
+    @CommandLine.Option(
+            names = { "--journal" },
+            description = "Journal of deleted projects, to resume an interrupted delete. Default: ~/.dt-tool/delete-projects.journal"
+    )
+    private Path journalFile = Path.of(System.getProperty("user.home"), ".dt-tool", "delete-projects.journal");
+    @CommandLine.Option(
+            names = { "--resume" },
+            description = "Resume an interrupted delete with the pending projects of the journal, without fetching projects"
+    )
+    private boolean resume;
+    @CommandLine.Option(
+            names = { "--retention" },
+            description = "Delete the projects which are not retained by the retention rules of the configuration, instead of matching version and age"
+    )
+    private boolean retention;
 
-    public Void call() {
+    public Void call() throws IOException {
+        List<DeleteJournal.Entry> entries;
+        List<Project> projects = List.of();
+        DeleteJournal resumed = null;
 
-        List<Project> projects = fetchProjects(
-                getNotBeforeInZonedTime(40 * 365),
-                getNotAfterInZonedTime(30),
-                versionMatch);
+        if (resume) {
+            resumed = DeleteJournal.open(journalFile);
+            entries = resumed.getPending();
+            LOGGER.info("Resuming delete of {} pending projects from journal '{}'", entries.size(), journalFile);
+        } else {
+            if (!discardPendingJournal()) {
+                return null;
+            }
+
+            if (retention) {
+                projects = planRetention();
+            } else {
+                projects = fetchProjects(
+                        getNotBeforeInZonedTime(40 * 365),
+                        getNotAfterInZonedTime(30),
+                        versionMatch);
+            }
+            entries = projects
+                    .stream()
+                    .map(p -> new DeleteJournal.Entry(p.getUuid(), String.valueOf(p.getName()), String.valueOf(p.getVersion())))
+                    .toList();
+        }
 
-        if (projects.isEmpty()) {
+        if (entries.isEmpty()) {
             return null;
         }
 
         boolean confirm = batchMode || ConsoleUtils.confirmByUser("Delete projects, enter YES", "YES");
 
         if (confirm) {
-            projects.forEach(p -> client.deleteProject(p));
+            try (DeleteJournal journal = resumed == null ? DeleteJournal.create(journalFile, projects) : resumed) {
+                delete(journal);
+            }
         }
 
         return null;
     }
 
+    /**
+     * Checks the journal of a previous delete before it is replaced by a new one.
+     * <p>
+     * Pending projects of an interrupted delete would be lost silently, so in batch mode the delete is refused and
+     * interactively the user must confirm to discard them.
+     *
+     * @return Returns true when there are no pending projects or the user confirmed to discard them
+     * @throws IOException Thrown when unable to read the journal
+     */
+    private boolean discardPendingJournal() throws IOException {
+        if (Files.notExists(journalFile)) {
+            return true;
+        }
+
+        int pending = DeleteJournal.open(journalFile).getPending().size();
+        if (pending == 0) {
+            return true;
+        }
+
+        String message = "Journal '%s' contains %s pending projects of an interrupted delete.".formatted(journalFile, pending);
+        if (batchMode) {
+            throw new DtToolException(message + " Repeat with option '--resume' to finish it, or remove the journal to start a new delete.");
+        }
+
+        LOGGER.warn("{} Use option '--resume' to finish it.", message);
+        return ConsoleUtils.confirmByUser("Discard the pending projects of the journal, enter YES", "YES");
+    }
+
+    /**
+     * Returns the projects which are not retained by the configured retention rules.
+     * <p>
+     * All versions of the filtered projects are evaluated, because the newest versions of a project name are retained.
+     */
+    @NonNull
+    private List<Project> planRetention() {
+        List<RetentionRule> rules = Configuration.getRetentionRules();
+        if (rules.isEmpty()) {
+            throw new DtToolException("No retention rules configured. Add 'retentionRules' to the configuration.");
+        }
+
+        LOGGER.info("Matching projects with name/uid: {}", projectFilterOptions.getProjectFilter().isEmpty() ? "<unset>" : projectFilterOptions.getProjectFilter());
+        LOGGER.info("Matching projects with tag: {}", projectFilterOptions.getTagFilter().isEmpty() ? "<unset>" : projectFilterOptions.getTagFilter());
+        LOGGER.info("Evaluating {} retention rules", rules.size());
+
+        RetentionPolicy policy = new RetentionPolicy(rules);
+        List<Project> projects;
+        try (Stream<Project> stream = ProjectQueryPlanner.query(client, projectFilterOptions)) {
+            projects = policy.plan(stream, ZonedDateTime.now());
+        }
+
+        printProjects(projects);
+
+        return projects;
+    }
+
+    private void delete(@NonNull DeleteJournal journal) throws IOException {
+        List<DeleteJournal.Entry> entries = journal.getPending();
+        AtomicInteger deleted = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.nanoTime();
+
+        ParallelUtil.forEach(entries, client.getParallelism(), entry -> {
+            try {
+                LOGGER.info("Delete project {} {} {}", entry.uuid(), entry.name(), entry.version());
+                deleteProject(entry);
+                journal.done(entry.uuid());
+                deleted.incrementAndGet();
+            } catch (DtToolException ex) {
+                failed.incrementAndGet();
+                LOGGER.error("Unable to delete project {} {} {}: {}", entry.uuid(), entry.name(), entry.version(), ex.getMessage());
+                failed(journal, entry, ex);
+            } catch (IOException ex) {
+                throw new DtToolException(ex);
+            }
+        });
+
+        double seconds = Math.max(1, System.nanoTime() - start) / 1_000_000_000d;
+        LOGGER.always(
+                "Deleted {} of {} projects in {} s ({} projects/s), {} failed",
+                deleted.get(),
+                entries.size(),
+                "%.1f".formatted(seconds),
+                "%.1f".formatted(deleted.get() / seconds),
+                failed.get());
+
+        if (failed.get() != 0) {
+            throw new DtToolException("%s projects not deleted. Repeat with option '--resume' to retry.".formatted(failed.get()));
+        }
+
+        journal.delete();
+    }
+
+    private void deleteProject(DeleteJournal.@NonNull Entry entry) {
+        try {
+            client.deleteProject(entry.uuid());
+        } catch (HttpStatusException ex) {
+            if (ex.getStatusCode() != 404) {
+                throw ex;
+            }
+
+            // Already deleted, e.g. by the interrupted run
+            LOGGER.debug("Project {} doesn't exist anymore", entry.uuid());
+        }
+    }
+
+    private void failed(@NonNull DeleteJournal journal, DeleteJournal.@NonNull Entry entry, @NonNull Exception ex) {
+        try {
+            journal.failed(entry.uuid(), String.valueOf(ex.getMessage()));
+        } catch (IOException e) {
+            throw new DtToolException(e);
+        }
+    }
+
 }
@@ -32,6 +32,7 @@ import org.jspecify.annotations.NonNull;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.stream.Stream;
 
 @CommandLine.Command(name = "fetch-projects", description = "Fetch projects")
 public class FetchProjectsCommand extends AbstractProjectFilterCommand implements Callable<Void> {
@@ -40,7 +41,8 @@ public class FetchProjectsCommand extends AbstractProjectFilterCommand implement
 
     @CommandLine.Option(
             names = { "--format" },
-            description = "Returns format. Supported values are: JSON, VERSION, UUID",
+            description = "Returns format. Supported values are: JSON, NDJSON, VERSION, UUID. " +
+                    "NDJSON prints every matching project in a line as they arrive, unsorted",
             defaultValue = "JSON")
     private ProjectResult format;
     @CommandLine.Option(
@@ -51,6 +53,11 @@ public class FetchProjectsCommand extends AbstractProjectFilterCommand implement
 
     @Override
     public Void call() {
+        if (format == ProjectResult.NDJSON) {
+            printAsNdjson();
+            return null;
+        }
+
         fetchProjects(
                 getNotBeforeInZonedTime(365 * 40),
                 getNotAfterInZonedTime(0),
@@ -64,11 +71,21 @@ public class FetchProjectsCommand extends AbstractProjectFilterCommand implement
         return null;
     }
 
+    private void printAsNdjson() {
+        try (Stream<Project> projects = streamProjects(getNotBeforeInZonedTime(365 * 40), getNotAfterInZonedTime(0), versionMatch)) {
+            projects
+                    .limit(projectFilterOptions.getMaxCount())
+                    .map(p -> mapToString(p, format))
+                    .forEach(LOGGER::always);
+        }
+    }
+
     @NonNull
     private String mapToString(@NonNull Project project, @NonNull ProjectResult result) {
         try {
             return switch (result) {
-                case JSON -> JsonMapperFactory.create().writeValueAsString(project);
+                case JSON -> JsonMapperFactory.writer(Project.class, JsonMapperFactory.Style.PRETTY).writeValueAsString(project);
+                case NDJSON -> JsonMapperFactory.writer(Project.class, JsonMapperFactory.Style.LINE).writeValueAsString(project);
                 case UUID -> Optional.ofNullable(project.getUuid()).map(UUID::toString).orElse("");
                 case VERSION -> project.getVersion();
             };
@@ -0,0 +1,166 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.commands;
+
+import de.elomagic.dttool.TimeUtil;
+import de.elomagic.dttool.dt.model.Metrics;
+import de.elomagic.dttool.dt.model.Project;
+import de.elomagic.dttool.dto.ReportDTO;
+
+import org.jspecify.annotations.NonNull;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar snapshot of the project versions of a report.
+ * <p>
+ * Only the month of the last BOM import, the project name and the metrics which are averaged in the report are kept,
+ * each in a primitive array, so the projects themselves can be dropped right after they are parsed. Project names are
+ * interned into an ID.
+ */
+final class ProjectMetricsSnapshot {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    private int size;
+    private int[] month = new int[INITIAL_CAPACITY];
+    private int[] nameId = new int[INITIAL_CAPACITY];
+    private float[] inheritedRiskScore = new float[INITIAL_CAPACITY];
+    private int[] critical = new int[INITIAL_CAPACITY];
+    private int[] high = new int[INITIAL_CAPACITY];
+    private int[] medium = new int[INITIAL_CAPACITY];
+    private int[] low = new int[INITIAL_CAPACITY];
+    private int[] unassigned = new int[INITIAL_CAPACITY];
+
+    /**
+     * Adds a project version to the snapshot.
+     *
+     * @param project Project version with a last BOM import
+     */
+    void add(@NonNull Project project) {
+        if (size == month.length) {
+            grow();
+        }
+
+        LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(project.getLastBomImportEpochMillis()), project.getLastBomImportZone());
+        Metrics metrics = project.getMetrics() == null ? new Metrics() : project.getMetrics();
+
+        month[size] = date.getYear() * 12 + date.getMonthValue() - 1;
+        nameId[size] = nameIds.computeIfAbsent(project.getName(), n -> {
+            names.add(n);
+            return names.size() - 1;
+        });
+        inheritedRiskScore[size] = metrics.getInheritedRiskScore();
+        critical[size] = metrics.getCritical();
+        high[size] = metrics.getHigh();
+        medium[size] = metrics.getMedium();
+        low[size] = metrics.getLow();
+        unassigned[size] = metrics.getUnassigned();
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Averages the metrics of all project versions per year-month and project name in a single pass.
+     *
+     * @param reportDate Date of the report
+     * @return Returns a map with year-month key and a map with project name key
+     */
+    @NonNull
+    Map<String, Map<String, ReportDTO>> summarize(@NonNull ZonedDateTime reportDate) {
+        Map<Long, Integer> groupIds = new HashMap<>();
+        int[] groupMonth = new int[16];
+        int[] groupNameId = new int[16];
+        int[] count = new int[16];
+        double[][] sums = new double[6][16];
+
+        for (int i = 0; i < size; i++) {
+            long key = ((long) month[i] << 32) | nameId[i];
+            int group = groupIds.computeIfAbsent(key, k -> groupIds.size());
+
+            if (group == count.length) {
+                int capacity = count.length * 2;
+                groupMonth = Arrays.copyOf(groupMonth, capacity);
+                groupNameId = Arrays.copyOf(groupNameId, capacity);
+                count = Arrays.copyOf(count, capacity);
+                for (int m = 0; m < sums.length; m++) {
+                    sums[m] = Arrays.copyOf(sums[m], capacity);
+                }
+            }
+
+            groupMonth[group] = month[i];
+            groupNameId[group] = nameId[i];
+            count[group]++;
+            sums[0][group] += inheritedRiskScore[i];
+            sums[1][group] += critical[i];
+            sums[2][group] += high[i];
+            sums[3][group] += medium[i];
+            sums[4][group] += low[i];
+            sums[5][group] += unassigned[i];
+        }
+
+        Map<String, Map<String, ReportDTO>> monthReports = new HashMap<>();
+        for (int group = 0; group < groupIds.size(); group++) {
+            String monthKey = TimeUtil.toMonthPattern(LocalDate.of(groupMonth[group] / 12, groupMonth[group] % 12 + 1, 1));
+            String name = names.get(groupNameId[group]);
+            double n = count[group];
+
+            ReportDTO dto = new ReportDTO(
+                    monthKey,
+                    name,
+                    reportDate,
+                    sums[0][group] / n,
+                    sums[1][group] / n,
+                    sums[2][group] / n,
+                    sums[3][group] / n,
+                    sums[4][group] / n,
+                    sums[5][group] / n
+            );
+
+            monthReports.computeIfAbsent(monthKey, k -> new HashMap<>()).put(name, dto);
+        }
+
+        return monthReports;
+    }
+
+    private void grow() {
+        int capacity = month.length + (month.length >> 1);
+        month = Arrays.copyOf(month, capacity);
+        nameId = Arrays.copyOf(nameId, capacity);
+        inheritedRiskScore = Arrays.copyOf(inheritedRiskScore, capacity);
+        critical = Arrays.copyOf(critical, capacity);
+        high = Arrays.copyOf(high, capacity);
+        medium = Arrays.copyOf(medium, capacity);
+        low = Arrays.copyOf(low, capacity);
+        unassigned = Arrays.copyOf(unassigned, capacity);
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.commands;
+
+import de.elomagic.dttool.ConsolePrinter;
+import de.elomagic.dttool.ProjectFilterOptions;
+import de.elomagic.dttool.dt.DTrackClient;
+import de.elomagic.dttool.dt.model.Project;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Turns the {@link ProjectFilterOptions} into the cheapest DTrack requests.
+ * <p>
+ * Project filter entries which are UUIDs will be fetched directly, all other entries are queried by name. Tag filters
+ * are queried by the tag endpoint. The full project list will only be scanned when neither a project filter nor a tag
+ * filter is set. Like the full scan, every query returns active projects only.
+ */
+final class ProjectQueryPlanner {
+
+    private record NamePage(int page, @NonNull List<Project> projects) {}
+
+    private static final ConsolePrinter LOGGER = ConsolePrinter.INSTANCE;
+    private static final int NAME_PAGE_LIMIT = 1000;
+
+    private ProjectQueryPlanner() {}
+
+    /**
+     * Query the projects which match the project and tag filter.
+     *
+     * @param client DTrack client
+     * @param options Filter options
+     * @return Returns a lazy stream of the matching projects without duplicates
+     */
+    @NonNull
+    static Stream<Project> query(@NonNull DTrackClient client, @NonNull ProjectFilterOptions options) {
+        List<String> projectFilter = options.getProjectFilter();
+        List<String> tagFilter = options.getTagFilter();
+
+        if (!projectFilter.isEmpty()) {
+            LOGGER.debug("Querying projects by name/UUID");
+            return distinct(projectFilter
+                    .stream()
+                    .flatMap(f -> parseUuid(f)
+                            .map(uuid -> client.fetchProject(uuid).filter(Project::isActive).stream())
+                            .orElseGet(() -> fetchProjectsByName(client, f)))
+                    // Defensive, because the server may match names not exactly
+                    .filter(p -> projectFilter.contains(p.getName()) || projectFilter.contains(String.valueOf(p.getUuid())))
+                    .filter(p -> tagFilter.isEmpty() || p.getTags().stream().anyMatch(t -> tagFilter.contains(t.getName()))));
+        }
+
+        if (!tagFilter.isEmpty()) {
+            LOGGER.debug("Querying projects by tag");
+            return distinct(tagFilter
+                    .stream()
+                    .flatMap(client::streamProjectsByTag));
+        }
+
+        LOGGER.debug("Scanning all projects");
+        return client.streamAllProjects();
+    }
+
+    /**
+     * Fetches the pages of projects with the given name one after another, until a page is not full.
+     */
+    @NonNull
+    private static Stream<Project> fetchProjectsByName(@NonNull DTrackClient client, @NonNull String name) {
+        return Stream
+                .iterate(
+                        new NamePage(1, client.fetchProjectsByName(name, NAME_PAGE_LIMIT, 1)),
+                        p -> !p.projects().isEmpty(),
+                        p -> new NamePage(
+                                p.page() + 1,
+                                p.projects().size() < NAME_PAGE_LIMIT ? List.of() : client.fetchProjectsByName(name, NAME_PAGE_LIMIT, p.page() + 1)))
+                .flatMap(p -> p.projects().stream());
+    }
+
+    @NonNull
+    private static Stream<Project> distinct(@NonNull Stream<Project> projects) {
+        Set<UUID> seen = new HashSet<>();
+        return projects.filter(p -> seen.add(p.getUuid()));
+    }
+
+    @NonNull
+    private static Optional<UUID> parseUuid(@NonNull String value) {
+        try {
+            return Optional.of(UUID.fromString(value));
+        } catch (IllegalArgumentException ex) {
+            return Optional.empty();
+        }
+    }
+
+}
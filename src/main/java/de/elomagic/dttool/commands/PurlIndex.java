@@ -0,0 +1,75 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.commands;
+
+import de.elomagic.dttool.dt.model.Component;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread safe index of components by their package URL (purl).
+ * <p>
+ * Components of different project versions with the same purl describe the same artifact, so rules have to be
+ * evaluated only once per purl.
+ */
+final class PurlIndex {
+
+    /**
+     * @param purl Package URL of the components or {@code null} when the component has no purl
+     * @param component First seen component with this purl
+     * @param occurrences All components with this purl, one per owning project version
+     */
+    record Entry(@Nullable String purl, @NonNull Component component, @NonNull List<Component> occurrences) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    void add(@NonNull Component component) {
+        // Components without purl can't be shared, so they are indexed by their UUID
+        String key = component.getPurl() == null ? "uuid:" + component.getUuid() : component.getPurl();
+
+        entries.compute(key, (k, entry) -> {
+            Entry e = entry == null ? new Entry(component.getPurl(), component, new ArrayList<>()) : entry;
+            e.occurrences().add(component);
+            return e;
+        });
+    }
+
+    @NonNull
+    Collection<Entry> entries() {
+        return entries.values();
+    }
+
+    /**
+     * @return Returns the count of all indexed components over all project versions
+     */
+    int componentCount() {
+        return entries.values().stream().mapToInt(e -> e.occurrences().size()).sum();
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.commands;
+
+import de.elomagic.dttool.DecimalFormatter;
+import de.elomagic.dttool.dto.ReportDTO;
+
+import org.jspecify.annotations.NonNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes {@link ReportDTO} records as CSV lines.
+ * <p>
+ * The columns are named like the record components and written by the accessors in the same order. Not thread safe, use
+ * one instance per target.
+ */
+final class ReportCsvWriter {
+
+    private static final List<String> HEADER = List.of(
+            "flooredBomDate",
+            "projectName",
+            "reportDate",
+            "averageInheritedRiskScore",
+            "averageCritical",
+            "averageHigh",
+            "averageMedium",
+            "averageLow",
+            "averageUnassigned");
+
+    private final Writer writer;
+    private final String delimiter;
+    private final DecimalFormatter formatter;
+    private final StringBuilder line = new StringBuilder(256);
+
+    ReportCsvWriter(@NonNull Writer writer, @NonNull String delimiter, @NonNull DecimalFormatter formatter) {
+        this.writer = writer;
+        this.delimiter = delimiter;
+        this.formatter = formatter;
+    }
+
+    void writeHeader() throws IOException {
+        writer.write(String.join(delimiter, HEADER));
+        writer.write("\n");
+    }
+
+    void write(@NonNull ReportDTO dto) throws IOException {
+        line.setLength(0);
+        line.append(dto.flooredBomDate()).append(delimiter);
+        line.append(dto.projectName()).append(delimiter);
+        line.append(dto.reportDate()).append(delimiter);
+        appendNumber(dto.averageInheritedRiskScore()).append(delimiter);
+        appendNumber(dto.averageCritical()).append(delimiter);
+        appendNumber(dto.averageHigh()).append(delimiter);
+        appendNumber(dto.averageMedium()).append(delimiter);
+        appendNumber(dto.averageLow()).append(delimiter);
+        appendNumber(dto.averageUnassigned()).append('\n');
+
+        writer.append(line);
+    }
+
+    @NonNull
+    private StringBuilder appendNumber(double value) {
+        formatter.format(value, line);
+        return line;
+    }
+
+}
@@ -17,11 +17,14 @@
  */
 package de.elomagic.dttool.commands;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import picocli.CommandLine;
 
 import de.elomagic.dttool.ComparatorFactory;
-import de.elomagic.dttool.DtToolException;
+import de.elomagic.dttool.ConsolePrinter;
+import de.elomagic.dttool.DecimalFormatter;
 import de.elomagic.dttool.JsonMapperFactory;
 import de.elomagic.dttool.OptionsParams;
 import de.elomagic.dttool.TimeUtil;
@@ -30,41 +33,35 @@ import de.elomagic.dttool.dt.model.Project;
 import de.elomagic.dttool.dto.ReportDTO;
 
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.logging.log4j.core.util.ReflectionUtil;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.Writer;
-import java.lang.reflect.Field;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.function.ToDoubleFunction;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @CommandLine.Command(name = "report", description = "Report export")
 public class ReportExportCommand extends AbstractProjectFilterCommand implements Callable<Void> {
 
-    private DecimalFormat decimalFormat;
+    private static final ConsolePrinter LOGGER = ConsolePrinter.INSTANCE;
+
+    private DecimalFormatter decimalFormatter;
 
     @CommandLine.Option(
             names = { "--format" },
-            description = "Export format. Supported values are: CSV, JSON",
+            description = "Export format. Supported values are: CSV, JSON, NDJSON",
             defaultValue = "CSV"
     )
     ExportFormat format;
@@ -104,13 +101,10 @@ public class ReportExportCommand extends AbstractProjectFilterCommand implements
     @Nullable
     @Override
     public Void call() throws IOException {
-        DecimalFormatSymbols decimalSymbols = DecimalFormatSymbols.getInstance(Locale.getDefault());
-        decimalSymbols.setDecimalSeparator(decimalSymbol);
-        decimalFormat = new DecimalFormat("#0.00");
-        decimalFormat.setDecimalFormatSymbols(decimalSymbols);
+        decimalFormatter = new DecimalFormatter(decimalSymbol, Locale.getDefault());
 
-        Map<String, Map<String, Set<Project>>> monthMap = getMonthMap();
-        Map<String, Map<String, ReportDTO>> monthReports = summaryInMonthReports(monthMap);
+        ProjectMetricsSnapshot snapshot = getMonthSnapshot();
+        Map<String, Map<String, ReportDTO>> monthReports = summaryInMonthReports(snapshot);
 
         if (fillGap) {
             // First month
@@ -161,10 +155,10 @@ public class ReportExportCommand extends AbstractProjectFilterCommand implements
             Files.createDirectories(file.getParent());
         }
 
-        if (format == ExportFormat.CSV) {
-            writeReportAsCsv(reports);
-        } else {
-            writeReportAsJson(reports);
+        switch (format) {
+            case CSV -> writeReportAsCsv(reports);
+            case JSON -> writeReportAsJson(reports);
+            case NDJSON -> writeReportAsNdjson(reports);
         }
 
         return null;
@@ -176,81 +170,28 @@ public class ReportExportCommand extends AbstractProjectFilterCommand implements
      * @return A map but never null
      */
     @NonNull
-    private Map<String, Map<String, ReportDTO>> summaryInMonthReports(@NonNull Map<String, Map<String, Set<Project>>> map) {
-        Map<String, Map<String, ReportDTO>> monthReports = new HashMap<>();
-
-        // Group reports to project name and year-month key
-        for (Map.Entry<String, Map<String, Set<Project>>> e : map.entrySet()) {
-            // Map of a specific month with named set of projects
-            Map<String, Set<Project>> namedProjects = e.getValue();
-
-            namedProjects.forEach((key, value) -> {
-                Map<String, ReportDTO> namedReport = monthReports.getOrDefault(e.getKey(), new HashMap<>());
-                monthReports.put(e.getKey(), namedReport);
-
-                ReportDTO dto = namedReport.get(key);
-
-                if (dto == null) {
-                    // Map ZonedDateTime to month pattern
-                    String month = TimeUtil.toMonthPattern(value
-                            .stream()
-                            .findFirst()
-                            .filter((p -> p.getLastBomImport() != null))
-                            .map(p -> p.getLastBomImport().toLocalDate().withDayOfMonth(1)).orElseThrow());
-
-                    dto = new ReportDTO(
-                            month,
-                            key,
-                            ZonedDateTime.now(),
-                            getAverage(value, p -> p.getMetrics().getInheritedRiskScore()),
-                            getAverage(value, p -> p.getMetrics().getCritical()),
-                            getAverage(value, p -> p.getMetrics().getHigh()),
-                            getAverage(value, p -> p.getMetrics().getMedium()),
-                            getAverage(value, p -> p.getMetrics().getLow()),
-                            getAverage(value, p -> p.getMetrics().getUnassigned())
-                    );
-                }
-
-                namedReport.put(key, dto);
-            });
-        }
-        return monthReports;
+    private Map<String, Map<String, ReportDTO>> summaryInMonthReports(@NonNull ProjectMetricsSnapshot snapshot) {
+        return snapshot.summarize(ZonedDateTime.now());
     }
 
     @NonNull
-    private Map<String, Map<String, Set<Project>>> getMonthMap() {
-        // Key = X month in the past. 0 = This month, 1 = Last month, 2 = The month before the last month and so on
-        Map<String, Map<String, Set<Project>>> monthMap = new HashMap<>();
+    private ProjectMetricsSnapshot getMonthSnapshot() {
+        ProjectMetricsSnapshot snapshot = new ProjectMetricsSnapshot();
 
-        // Get projects and put it into a map with project name key and put it into a map with year-month key
-        fetchProjects(
+        // Keep only month, name and metrics of each project while the pages are parsed
+        try (Stream<Project> projects = streamProjects(
                 getNotBeforeInZonedTime(365 * 12),
                 getNotAfterInZonedTime(0),
-                versionMatch)
-                .stream()
-                .filter(p -> p.getLastBomImport() != null)
-                .forEach(p -> {
-                    String key = "%s-%02d".formatted(p.getLastBomImport().getYear(), p.getLastBomImport().getMonthValue());
-
-                    // Group by project name
-                    Map<String, Set<Project>> projectsMap = monthMap.getOrDefault(key, new HashMap<>());
-                    monthMap.put(key, projectsMap);
-
-                    Set<Project> projects = projectsMap.getOrDefault(p.getName(), new HashSet<>());
-                    projects.add(p);
-                    projectsMap.put(p.getName(), projects);
-                });
-        return monthMap;
-    }
+                versionMatch)) {
+            projects
+                    .filter(Project::hasLastBomImport)
+                    .forEach(snapshot::add);
+        }
 
-    private double getAverage(@NonNull Set<Project> projects, @NonNull ToDoubleFunction<Project> mapper) {
-        return projects
-                .stream()
-                .mapToDouble(mapper)
-                .average()
-                .orElse(0);
-    }
+        LOGGER.info("{} projects matched ", snapshot.size());
 
+        return snapshot;
+    }
 
     @NonNull
     private ReportDTO getPreviousReport(@NonNull Map<String, Map<String, ReportDTO>> map, @NonNull String currentFlooredDate, @NonNull String projectName) {
@@ -266,51 +207,37 @@ public class ReportExportCommand extends AbstractProjectFilterCommand implements
     }
 
     private void writeReportAsCsv(@NonNull List<ReportDTO> reports) throws IOException {
-        Field[] fields = ReportDTO.class.getDeclaredFields();
-
         try (BufferedWriter writer = Files.newBufferedWriter(file)) {
-            // Write header
-            writer.write(Arrays.stream(fields).map(Field::getName).collect(Collectors.joining(delimiterChar)));
-            writer.write("\n");
+            ReportCsvWriter csvWriter = new ReportCsvWriter(writer, delimiterChar, decimalFormatter);
+            csvWriter.writeHeader();
 
-            reports.forEach(r -> writeCsvRecord(r, writer));
+            for (ReportDTO report : reports) {
+                csvWriter.write(report);
+            }
         }
     }
 
-    private void writeCsvRecord(@NonNull ReportDTO dto, @NonNull Writer writer) {
-        try {
-            Field[] fields = ReportDTO.class.getDeclaredFields();
-
-            writer.write(Arrays
-                    .stream(fields)
-                    .map(f -> getCsvCell(f, dto))
-                    .map(v -> v == null ? "" : v)
-                    .collect(Collectors.joining(delimiterChar)));
-            writer.write("\n");
-        } catch (IOException ex) {
-            throw new DtToolException(ex);
+    private void writeReportAsJson(@NonNull List<ReportDTO> reports) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file);
+             SequenceWriter sequenceWriter = JsonMapperFactory.writer(ReportDTO.class, JsonMapperFactory.Style.PRETTY).writeValuesAsArray(writer)) {
+            for (ReportDTO report : reports) {
+                sequenceWriter.write(report);
+            }
         }
     }
 
-    @Nullable
-    private String getCsvCell(@NonNull Field field, @NonNull ReportDTO dto) {
-        Object o = ReflectionUtil.getFieldValue(field, dto);
-
-        if (o instanceof Double d) {
-            return decimalFormat.format(d);
-        } else if (o instanceof Float f) {
-            return decimalFormat.format(f);
-        }
-
-        return String.valueOf(o);
-    }
+    private void writeReportAsNdjson(@NonNull List<ReportDTO> reports) throws IOException {
+        ObjectWriter lineWriter = JsonMapperFactory.writer(ReportDTO.class, JsonMapperFactory.Style.LINE);
 
-    private void writeReportAsJson(@NonNull List<ReportDTO> reports) throws IOException {
-        ObjectMapper mapper = JsonMapperFactory.create();
+        try (BufferedWriter writer = Files.newBufferedWriter(file);
+             JsonGenerator generator = lineWriter.createGenerator(writer)) {
+            for (ReportDTO report : reports) {
+                lineWriter.writeValue(generator, report);
+            }
 
-        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
-            String json = mapper.writeValueAsString(reports);
-            writer.write(json);
+            if (!reports.isEmpty()) {
+                generator.writeRaw('\n');
+            }
         }
     }
 
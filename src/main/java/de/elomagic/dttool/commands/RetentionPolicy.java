@@ -0,0 +1,151 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.commands;
+
+import de.elomagic.dttool.ComparatorFactory;
+import de.elomagic.dttool.DtToolException;
+import de.elomagic.dttool.configuration.model.LatestBy;
+import de.elomagic.dttool.configuration.model.RetentionRule;
+import de.elomagic.dttool.dt.model.Project;
+import de.elomagic.dttool.dt.model.Tag;
+
+import org.jspecify.annotations.NonNull;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Evaluates {@link RetentionRule}s against projects and plans which projects have to be deleted.
+ * <p>
+ * The projects are grouped by name in a single pass. Each group is sorted newest first and evaluated by the first rule
+ * which matches the name. Projects of names without a matching rule are retained.
+ */
+final class RetentionPolicy {
+
+    private record CompiledRule(
+            @NonNull RetentionRule rule,
+            @NonNull Pattern name,
+            @NonNull Pattern version,
+            @NonNull Comparator<Project> newestFirst) {}
+
+    private final List<CompiledRule> rules;
+
+    RetentionPolicy(@NonNull List<RetentionRule> rules) {
+        this.rules = rules.stream().map(RetentionPolicy::compile).toList();
+    }
+
+    /**
+     * Returns the projects to be deleted.
+     *
+     * @param projects Projects, usually all versions of the project names to clean up
+     * @param now Reference time of the age of a project
+     * @return Returns the projects sorted by name and newest version first
+     */
+    @NonNull
+    List<Project> plan(@NonNull Stream<Project> projects, @NonNull ZonedDateTime now) {
+        Map<String, List<Project>> groups = projects.collect(Collectors.groupingBy(
+                p -> String.valueOf(p.getName()),
+                TreeMap::new,
+                Collectors.toCollection(ArrayList::new)));
+
+        List<Project> plan = new ArrayList<>();
+        groups.forEach((name, group) -> findRule(name).ifPresent(rule -> plan.addAll(evaluate(rule, group, now))));
+
+        return plan;
+    }
+
+    @NonNull
+    private Optional<CompiledRule> findRule(@NonNull String name) {
+        return rules.stream().filter(rule -> rule.name().matcher(name).matches()).findFirst();
+    }
+
+    /**
+     * Returns the projects of a group which are not retained by the rule.
+     * <p>
+     * The newest versions are counted among all versions matching the rule, including tagged ones.
+     */
+    @NonNull
+    private List<Project> evaluate(@NonNull CompiledRule rule, @NonNull List<Project> group, @NonNull ZonedDateTime now) {
+        Integer olderThanDays = rule.rule().getOlderThanDays();
+        long notAfterMillis = olderThanDays == null ? Long.MAX_VALUE : now.minusDays(olderThanDays).toInstant().toEpochMilli();
+        Set<String> keepTags = rule.rule().getKeepTags() == null ? Set.of() : rule.rule().getKeepTags();
+
+        group.sort(rule.newestFirst());
+
+        List<Project> expired = new ArrayList<>();
+        int rank = 0;
+        for (Project project : group) {
+            if (!rule.version().matcher(String.valueOf(project.getVersion())).matches() || rank++ < rule.rule().getKeepNewest()) {
+                continue;
+            }
+
+            boolean tagged = project.getTags() != null && project.getTags().stream().map(Tag::getName).anyMatch(keepTags::contains);
+            // Projects without BOM import have no age and are retained when an age is required
+            boolean old = olderThanDays == null || (project.hasLastBomImport() && project.getLastBomImportEpochMillis() < notAfterMillis);
+
+            if (!tagged && old) {
+                expired.add(project);
+            }
+        }
+
+        return expired;
+    }
+
+    @NonNull
+    private static CompiledRule compile(@NonNull RetentionRule rule) {
+        String matchName = rule.getMatchName() == null ? ".*" : rule.getMatchName();
+        String matchVersion = rule.getMatchVersion() == null || rule.getMatchVersion().isBlank() ? ".*" : rule.getMatchVersion();
+
+        if (rule.getKeepNewest() < 1 && rule.getOlderThanDays() == null && ".*".equals(matchVersion)) {
+            throw new DtToolException(
+                    "Retention rule of project names '%s' would delete all versions. Set 'matchVersion', 'olderThanDays' or a 'keepNewest' of at least 1."
+                            .formatted(matchName));
+        }
+
+        Comparator<Project> comparator = switch (rule.getNewestBy() == null ? LatestBy.VERSION : rule.getNewestBy()) {
+            case VERSION -> ComparatorFactory.versionComparator().thenComparing(ComparatorFactory.lastBomImportComparator());
+            case LAST_BOM_IMPORT -> ComparatorFactory.lastBomImportComparator().thenComparing(ComparatorFactory.versionComparator());
+        };
+
+        return new CompiledRule(
+                rule,
+                compile(matchName),
+                compile(matchVersion),
+                comparator.reversed());
+    }
+
+    @NonNull
+    private static Pattern compile(@NonNull String regEx) {
+        try {
+            return Pattern.compile(regEx);
+        } catch (PatternSyntaxException ex) {
+            throw new DtToolException("Invalid retention pattern '%s': %s".formatted(regEx, ex.getDescription()));
+        }
+    }
+
+}
@@ -19,16 +19,25 @@ package de.elomagic.dttool.commands;
 
 import picocli.CommandLine;
 
+import de.elomagic.dttool.ConsolePrinter;
 import de.elomagic.dttool.ConsoleUtils;
+import de.elomagic.dttool.DtToolException;
 import de.elomagic.dttool.OptionsParams;
+import de.elomagic.dttool.ParallelUtil;
 import de.elomagic.dttool.dt.model.Project;
 
+import org.jspecify.annotations.NonNull;
+
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
 
 @CommandLine.Command(name = "tag-projects", description = "Update a bulk of tag in projects")
 public class TagProjectsCommand extends AbstractProjectFilterCommand implements Callable<Void> {
 
+    private static final ConsolePrinter LOGGER = ConsolePrinter.INSTANCE;
+
     @CommandLine.Option(
             names = { OptionsParams.BATCH_MODE, OptionsParams.BATCH_MODE_SHORT },
             negatable = true,
@@ -39,8 +48,22 @@ public class TagProjectsCommand extends AbstractProjectFilterCommand implements
             description = "Tag"
     )
     private String tag;
+    @CommandLine.Option(
+            names = { "--removeTag" },
+            description = "Tag to remove. Together with option --tag, the tag will be replaced"
+    )
+    private String removeTag;
+    @CommandLine.Option(
+            names = { "--chunkSize" },
+            description = "Maximum count of projects per request",
+            defaultValue = "500"
+    )
+    private int chunkSize = 500;
 
     public Void call() {
+        if (tag == null && removeTag == null) {
+            throw new DtToolException("Option '--tag' or '--removeTag' is required.");
+        }
 
         List<Project> projects = fetchProjects(
                 getNotBeforeInZonedTime(40 * 365),
@@ -51,16 +74,50 @@ public class TagProjectsCommand extends AbstractProjectFilterCommand implements
             return null;
         }
 
+        List<UUID> untagged = tag == null ? List.of() : projects
+                .stream()
+                .filter(p -> !hasTag(p, tag))
+                .map(Project::getUuid)
+                .toList();
+        List<UUID> tagged = removeTag == null ? List.of() : projects
+                .stream()
+                .filter(p -> hasTag(p, removeTag))
+                .map(Project::getUuid)
+                .toList();
+
+        if (untagged.isEmpty() && tagged.isEmpty()) {
+            LOGGER.info("Tags of all projects are already up to date");
+            return null;
+        }
+
         boolean confirm = batchMode || ConsoleUtils.confirmByUser("Set tag of projects, enter YES", "YES");
 
         if (confirm) {
-            projects
-                    .stream()
-                    .filter(p -> p.getTags().stream().noneMatch(t -> tag.equals(t.getName())))
-                    .forEach(p -> client.tagProject(p, tag));
+            long start = System.nanoTime();
+            // Tag is added before the replaced one is removed, so projects are never without a tag
+            int requests = send(untagged, tag, client::tagProjects);
+            requests += send(tagged, removeTag, client::untagProjects);
+
+            LOGGER.info(
+                    "Tagged {} and untagged {} projects with {} requests in {} s",
+                    untagged.size(),
+                    tagged.size(),
+                    requests,
+                    "%.1f".formatted((System.nanoTime() - start) / 1_000_000_000d));
         }
 
         return null;
     }
 
+    private int send(@NonNull List<UUID> uuids, String tagName, @NonNull BiConsumer<String, List<UUID>> request) {
+        List<List<UUID>> chunks = ParallelUtil.partition(uuids, chunkSize);
+        ParallelUtil.forEach(chunks, client.getParallelism(), chunk -> request.accept(tagName, chunk));
+
+        return chunks.size();
+    }
+
+    private static boolean hasTag(@NonNull Project project, @NonNull String tagName) {
+        return project.getTags().stream().anyMatch(t -> tagName.equals(t.getName()));
+    }
+
 }
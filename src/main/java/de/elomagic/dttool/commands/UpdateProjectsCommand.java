@@ -19,18 +19,32 @@ package de.elomagic.dttool.commands;
 
 import picocli.CommandLine;
 
+import de.elomagic.dttool.ComparatorFactory;
+import de.elomagic.dttool.ConsolePrinter;
 import de.elomagic.dttool.ConsoleUtils;
+import de.elomagic.dttool.DtToolException;
 import de.elomagic.dttool.OptionsParams;
+import de.elomagic.dttool.ParallelUtil;
+import de.elomagic.dttool.configuration.model.LatestBy;
 import de.elomagic.dttool.dt.model.Project;
 
-import java.util.HashSet;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
 
 @CommandLine.Command(name = "update-projects", description = "Update projects")
 public class UpdateProjectsCommand extends AbstractProjectFilterCommand implements Callable<Void> {
 
+    private static final ConsolePrinter LOGGER = ConsolePrinter.INSTANCE;
+
     @CommandLine.Option(
             names = { OptionsParams.BATCH_MODE, OptionsParams.BATCH_MODE_SHORT },
             negatable = true,
@@ -51,9 +65,23 @@ public class UpdateProjectsCommand extends AbstractProjectFilterCommand implemen
             description = "Regular expression to match version",
             defaultValue = ".*")
     private String versionMatch;
+    @CommandLine.Option(
+            names = { "--autoLatest" },
+            description = "Set latest flag in the latest project of each project name and reset it in all others. " +
+                    "Only projects matched by the filters are taken into account")
+    private boolean autoLatest;
+    @CommandLine.Option(
+            names = { "--latestBy" },
+            description = "Defines the latest project of a name with option --autoLatest. Valid values: ${COMPLETION-CANDIDATES}",
+            defaultValue = "VERSION")
+    private LatestBy latestBy = LatestBy.VERSION;
 
     @Override
     public Void call() {
+        if (autoLatest && latest != null) {
+            throw new DtToolException("Option '--autoLatest' can't be combined with option '--latest'.");
+        }
+
         List<Project> projects = fetchProjects(
                 getNotBeforeInZonedTime(365 * 40),
                 getNotAfterInZonedTime(0),
@@ -62,19 +90,15 @@ public class UpdateProjectsCommand extends AbstractProjectFilterCommand implemen
                 .limit(projectFilterOptions.getMaxCount())
                 .toList();
 
-        Set<Project> modifiedProjects = new HashSet<>();
+        Set<Project> latestProjects = autoLatest ? findLatestProjects(projects) : Set.of();
 
-        for (Project project : projects) {
-            if (active != null) {
-                project.setActive(active);
-                modifiedProjects.add(project);
-            }
+        // Only projects which differ from the requested state are updated
+        List<Project> modifiedProjects = projects
+                .stream()
+                .filter(p -> applyChanges(p, autoLatest ? Boolean.valueOf(latestProjects.contains(p)) : latest))
+                .toList();
 
-            if (latest != null) {
-                project.setLatest(latest);
-                modifiedProjects.add(project);
-            }
-        }
+        LOGGER.info("{} of {} projects must be updated", modifiedProjects.size(), projects.size());
 
         if (modifiedProjects.isEmpty()) {
             return null;
@@ -83,10 +107,72 @@ public class UpdateProjectsCommand extends AbstractProjectFilterCommand implemen
         boolean confirm = batchMode || ConsoleUtils.confirmByUser("Update projects, enter YES", "YES");
 
         if (confirm) {
-            modifiedProjects.forEach(project -> client.updateProject(project));
+            updateProjects(modifiedProjects);
         }
 
         return null;
     }
 
+    /**
+     * Returns the latest project of each project name.
+     *
+     * @param projects Projects
+     * @return Returns a set of the latest projects, compared by identity
+     */
+    @NonNull
+    private Set<Project> findLatestProjects(@NonNull List<Project> projects) {
+        Comparator<Project> comparator = switch (latestBy) {
+            case VERSION -> ComparatorFactory.versionComparator().thenComparing(ComparatorFactory.lastBomImportComparator());
+            case LAST_BOM_IMPORT -> ComparatorFactory.lastBomImportComparator().thenComparing(ComparatorFactory.versionComparator());
+        };
+
+        Set<Project> latestProjects = Collections.newSetFromMap(new IdentityHashMap<>());
+        projects
+                .stream()
+                .collect(Collectors.groupingBy(p -> String.valueOf(p.getName())))
+                .values()
+                .forEach(group -> group.stream().max(comparator).ifPresent(latestProjects::add));
+
+        LOGGER.info("Latest project of {} project names determined by {}", latestProjects.size(), latestBy);
+
+        return latestProjects;
+    }
+
+    /**
+     * Applies the requested flags to a project.
+     *
+     * @param project Project
+     * @param latestFlag Requested latest flag or null when unchanged
+     * @return Returns true when the project was changed
+     */
+    private boolean applyChanges(@NonNull Project project, @Nullable Boolean latestFlag) {
+        boolean modified = false;
+
+        if (active != null && project.isActive() != active) {
+            project.setActive(active);
+            modified = true;
+        }
+
+        if (latestFlag != null && project.isLatest() != latestFlag) {
+            project.setLatest(latestFlag);
+            modified = true;
+        }
+
+        return modified;
+    }
+
+    private void updateProjects(@NonNull List<Project> projects) {
+        long start = System.nanoTime();
+
+        // Outdated latest flags are reset before new ones are set, so a name never has two latest projects
+        Map<Boolean, List<Project>> byLatest = projects.stream().collect(Collectors.partitioningBy(Project::isLatest));
+        ParallelUtil.forEach(byLatest.get(false), client.getParallelism(), client::updateProject);
+        ParallelUtil.forEach(byLatest.get(true), client.getParallelism(), client::updateProject);
+
+        LOGGER.info(
+                "Updated {} projects in {} s",
+                projects.size(),
+                "%.1f".formatted((System.nanoTime() - start) / 1_000_000_000d));
+    }
+
 }
@@ -17,20 +17,22 @@
  */
 package de.elomagic.dttool.configuration;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import de.elomagic.dttool.ConsolePrinter;
 import de.elomagic.dttool.JsonMapperFactory;
 import de.elomagic.dttool.configuration.model.PatchRule;
+import de.elomagic.dttool.configuration.model.RetentionRule;
 import de.elomagic.dttool.configuration.model.Root;
 
 import org.apache.commons.io.IOUtils;
 import org.jspecify.annotations.NonNull;
 
 import java.io.IOException;
+import java.net.http.HttpClient;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
 import java.util.Set;
 
 @SuppressWarnings("squid:S6548")
@@ -45,6 +47,8 @@ public final class Configuration {
 
     public static final Configuration INSTANCE = new Configuration();
     private Root conf = new Root();
+    private PurlMatcher<PatchRule> patchRuleMatcher;
+    private PurlMatcher<String> ignorePurlMatcher;
 
     private Configuration() {
         load();
@@ -55,6 +59,7 @@ public final class Configuration {
      */
     public void load() {
         conf = new Root();
+        resetMatchers();
 
         if (Files.notExists(CONFIG_FILE)) {
             LOGGER.info("Configuration file '{}' not found.", CONFIG_FILE);
@@ -64,8 +69,7 @@ public final class Configuration {
 
         LOGGER.debug("Loading configuration from '{}'.", CONFIG_FILE);
         try {
-            ObjectMapper objectMapper = JsonMapperFactory.create();
-            conf = objectMapper.readValue(CONFIG_FILE.toFile(), Root.class);
+            conf = JsonMapperFactory.reader(Root.class).readValue(CONFIG_FILE.toFile());
         } catch (Exception ex) {
             LOGGER.error(ex.getMessage(), ex);
         }
@@ -90,14 +94,19 @@ public final class Configuration {
 
     public void loadAlternative(@NonNull Path file) {
         LOGGER.info("Loading alternative configuration from '{}'.", file);
-        ObjectMapper objectMapper = JsonMapperFactory.create();
         try {
-            conf = objectMapper.readValue(CONFIG_FILE.toFile(), Root.class);
+            conf = JsonMapperFactory.reader(Root.class).readValue(CONFIG_FILE.toFile());
+            resetMatchers();
         } catch (Exception ex) {
             LOGGER.error(ex.getMessage(), ex);
         }
     }
 
+    private synchronized void resetMatchers() {
+        patchRuleMatcher = null;
+        ignorePurlMatcher = null;
+    }
+
     public String getBaseUrl() {
         return conf.getBaseUrl();
     }
@@ -114,11 +123,72 @@ public final class Configuration {
         conf.setApiKey(apiKey);
     }
 
+    @NonNull
+    public Duration getConnectTimeout() {
+        return Duration.ofSeconds(Math.max(1, conf.getConnectTimeout()));
+    }
+
+    @NonNull
+    public Duration getRequestTimeout() {
+        return Duration.ofSeconds(Math.max(1, conf.getRequestTimeout()));
+    }
+
+    public HttpClient.@NonNull Version getHttpVersion() {
+        return conf.getHttpVersion() == null ? HttpClient.Version.HTTP_2 : conf.getHttpVersion();
+    }
+
+    /**
+     * @return Returns true when the HTTP client shall run its tasks on virtual threads
+     */
+    public boolean isVirtualThreads() {
+        return conf.isVirtualThreads();
+    }
+
     public Set<String> getIgnorePurl() { return conf.getIgnorePurl(); }
 
+    /**
+     * Returns the precompiled patterns of {@link #getIgnorePurl()}.
+     *
+     * @return Returns the matcher but never null
+     */
+    @NonNull
+    public synchronized PurlMatcher<String> getIgnorePurlMatcher() {
+        if (ignorePurlMatcher == null) {
+            ignorePurlMatcher = PurlMatcher.compile(getIgnorePurl() == null ? Set.of() : getIgnorePurl(), s -> s);
+        }
+
+        return ignorePurlMatcher;
+    }
+
     @NonNull
     public static Set<PatchRule> getPatchRules() {
             return INSTANCE.conf.getPatchRules() == null ? Set.of() : INSTANCE.conf.getPatchRules();
     }
 
+    /**
+     * Returns the precompiled purl patterns of {@link #getPatchRules()}.
+     *
+     * @return Returns the matcher but never null
+     */
+    @NonNull
+    public static PurlMatcher<PatchRule> getPatchRuleMatcher() {
+        synchronized (INSTANCE) {
+            if (INSTANCE.patchRuleMatcher == null) {
+                INSTANCE.patchRuleMatcher = PurlMatcher.compile(getPatchRules(), PatchRule::getMatchPurl);
+            }
+
+            return INSTANCE.patchRuleMatcher;
+        }
+    }
+
+    /**
+     * Returns the retention rules of projects in the order of precedence.
+     *
+     * @return Returns the rules but never null
+     */
+    @NonNull
+    public static List<RetentionRule> getRetentionRules() {
+        return INSTANCE.conf.getRetentionRules() == null ? List.of() : INSTANCE.conf.getRetentionRules();
+    }
+
 }
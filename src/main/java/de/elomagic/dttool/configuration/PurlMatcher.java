@@ -0,0 +1,192 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.configuration;
+
+import de.elomagic.dttool.DtToolException;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Precompiled matcher of regular expressions against package URLs (purl).
+ * <p>
+ * Every expression is compiled once and indexed in a trie by its literal prefix, e.g. {@code pkg:maven/org\.apache}
+ * for {@code pkg:maven/org\.apache\..*}. For a given purl only the expressions along the path of the purl in the trie
+ * are tested, which are usually a handful, instead of all configured expressions. An expression matches when it
+ * matches the entire purl, like {@link String#matches(String)} does.
+ *
+ * @param <T> Type of the value which is associated with an expression
+ */
+public final class PurlMatcher<T> {
+
+    private record Candidate<T>(int order, @NonNull Pattern pattern, @NonNull T value) {}
+
+    private static final class Node<T> {
+        private final Map<Character, Node<T>> children = new HashMap<>();
+        private final List<Candidate<T>> candidates = new ArrayList<>();
+    }
+
+    private static final String META_CHARS = "\\.[]{}()*+?^$|";
+
+    private final Node<T> root = new Node<>();
+    private final int size;
+
+    private PurlMatcher(@NonNull Collection<T> values, @NonNull Function<T, String> regExOf) {
+        int order = 0;
+        for (T value : values) {
+            String regEx = regExOf.apply(value);
+            try {
+                add(new Candidate<>(order++, Pattern.compile(regEx), value), literalPrefix(regEx));
+            } catch (PatternSyntaxException ex) {
+                throw new DtToolException("Invalid purl pattern '%s': %s".formatted(regEx, ex.getDescription()));
+            }
+        }
+        size = order;
+    }
+
+    /**
+     * Compiles the regular expressions of the given values.
+     *
+     * @param values Values in the order of precedence
+     * @param regExOf Function which returns the regular expression of a value
+     * @return Returns the matcher
+     * @param <T> Type of the values
+     */
+    @NonNull
+    public static <T> PurlMatcher<T> compile(@NonNull Collection<T> values, @NonNull Function<T, String> regExOf) {
+        return new PurlMatcher<>(values, regExOf);
+    }
+
+    /**
+     * Returns the value of the first expression, in order of precedence, which matches the purl.
+     *
+     * @param purl Package URL to match
+     * @return Returns the value or an empty optional when no expression matches
+     */
+    @NonNull
+    public Optional<T> findFirst(@NonNull String purl) {
+        List<Candidate<T>> candidates = new ArrayList<>(root.candidates);
+
+        Node<T> node = root;
+        for (int i = 0; i < purl.length() && !node.children.isEmpty(); i++) {
+            node = node.children.get(purl.charAt(i));
+            if (node == null) {
+                break;
+            }
+            candidates.addAll(node.candidates);
+        }
+
+        if (candidates.size() > 1) {
+            candidates.sort(Comparator.comparingInt(Candidate::order));
+        }
+
+        for (Candidate<T> candidate : candidates) {
+            if (candidate.pattern().matcher(purl).matches()) {
+                return Optional.of(candidate.value());
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    public boolean matchesAny(@NonNull String purl) {
+        return findFirst(purl).isPresent();
+    }
+
+    /**
+     * @return Returns the count of compiled expressions
+     */
+    public int size() {
+        return size;
+    }
+
+    private void add(@NonNull Candidate<T> candidate, @NonNull String prefix) {
+        Node<T> node = root;
+        for (char c : prefix.toCharArray()) {
+            node = node.children.computeIfAbsent(c, k -> new Node<>());
+        }
+        node.candidates.add(candidate);
+    }
+
+    /**
+     * Returns the literal text every match of the expression has to start with.
+     *
+     * @param regEx Regular expression
+     * @return Returns the literal prefix, which might be empty
+     */
+    @NonNull
+    static String literalPrefix(@NonNull String regEx) {
+        if (hasAlternation(regEx)) {
+            return "";
+        }
+
+        StringBuilder prefix = new StringBuilder();
+        int i = regEx.startsWith("^") ? 1 : 0;
+
+        while (i < regEx.length()) {
+            char c = regEx.charAt(i);
+            char literal;
+            int next;
+
+            if (c == '\\' && i + 1 < regEx.length() && !Character.isLetterOrDigit(regEx.charAt(i + 1))) {
+                // Escaped meta character
+                literal = regEx.charAt(i + 1);
+                next = i + 2;
+            } else if (META_CHARS.indexOf(c) == -1) {
+                literal = c;
+                next = i + 1;
+            } else {
+                break;
+            }
+
+            if (next < regEx.length() && "*?{".indexOf(regEx.charAt(next)) != -1) {
+                // Literal is optional or repeated
+                break;
+            }
+
+            prefix.append(literal);
+            i = next;
+        }
+
+        return prefix.toString();
+    }
+
+    private static boolean hasAlternation(@NonNull String regEx) {
+        for (int i = 0; i < regEx.length(); i++) {
+            char c = regEx.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '|') {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+}
@@ -20,6 +20,7 @@ package de.elomagic.dttool.configuration.model;
 public enum ExportFormat {
 
     CSV,
-    JSON
+    JSON,
+    NDJSON
 
 }
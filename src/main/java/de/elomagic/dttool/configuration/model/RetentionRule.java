@@ -0,0 +1,112 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.configuration.model;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Declarative rule which projects of a project name are retained.
+ * <p>
+ * A project of a matching name is deleted when its version matches {@link #getMatchVersion()}, it is not one of the
+ * {@link #getKeepNewest()} newest matching versions, it has none of the {@link #getKeepTags()} and its last BOM import
+ * is older than {@link #getOlderThanDays()}.
+ * <p>
+ * By default the newest version is retained. A rule which would delete all versions of a name unconditionally is
+ * rejected.
+ */
+public class RetentionRule {
+
+    private String matchName = ".*";
+    private String matchVersion;
+    private int keepNewest = 1;
+    private Set<String> keepTags = new HashSet<>();
+    private Integer olderThanDays;
+    private LatestBy newestBy = LatestBy.VERSION;
+
+    public RetentionRule() {
+    }
+
+    /**
+     * @return Returns the regular expression of the project names the rule applies to
+     */
+    public String getMatchName() {
+        return matchName;
+    }
+
+    public void setMatchName(String matchName) {
+        this.matchName = matchName;
+    }
+
+    /**
+     * @return Returns the regular expression of the versions which can be deleted or null when every version can be
+     * deleted
+     */
+    public String getMatchVersion() {
+        return matchVersion;
+    }
+
+    public void setMatchVersion(String matchVersion) {
+        this.matchVersion = matchVersion;
+    }
+
+    /**
+     * @return Returns the count of newest matching versions which are always retained, by default 1
+     */
+    public int getKeepNewest() {
+        return keepNewest;
+    }
+
+    public void setKeepNewest(int keepNewest) {
+        this.keepNewest = keepNewest;
+    }
+
+    /**
+     * @return Returns the tags of projects which are always retained
+     */
+    public Set<String> getKeepTags() {
+        return keepTags;
+    }
+
+    public void setKeepTags(Set<String> keepTags) {
+        this.keepTags = keepTags;
+    }
+
+    /**
+     * @return Returns the minimum age in days of the last BOM import or null when the age doesn't matter
+     */
+    public Integer getOlderThanDays() {
+        return olderThanDays;
+    }
+
+    public void setOlderThanDays(Integer olderThanDays) {
+        this.olderThanDays = olderThanDays;
+    }
+
+    /**
+     * @return Returns how the newest versions are determined
+     */
+    public LatestBy getNewestBy() {
+        return newestBy;
+    }
+
+    public void setNewestBy(LatestBy newestBy) {
+        this.newestBy = newestBy;
+    }
+
+}
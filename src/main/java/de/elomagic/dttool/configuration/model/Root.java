@@ -19,16 +19,24 @@ package de.elomagic.dttool.configuration.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.net.http.HttpClient;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 public class Root {
 
     private String baseUrl;
     private String apiKey;
+    private int connectTimeout = 10;
+    private int requestTimeout = 60;
+    private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+    private boolean virtualThreads = true;
     private Set<String> ignorePurl = new HashSet<>();
     @JsonProperty("patchRules")
     private Set<PatchRule> patchRules = new HashSet<>();
+    private List<RetentionRule> retentionRules = new ArrayList<>();
 
     public String getBaseUrl() {
         return baseUrl;
@@ -46,6 +54,44 @@ public class Root {
         this.apiKey = apiKey;
     }
 
+    /**
+     * @return Returns the timeout in seconds to establish a connection to DTrack
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * @return Returns the timeout in seconds to wait for the response of a request
+     */
+    public int getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public void setRequestTimeout(int requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    public HttpClient.Version getHttpVersion() {
+        return httpVersion;
+    }
+
+    public void setHttpVersion(HttpClient.Version httpVersion) {
+        this.httpVersion = httpVersion;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
     public Set<String> getIgnorePurl() {
         return ignorePurl;
     }
@@ -54,4 +100,11 @@ public class Root {
         return patchRules;
     }
 
+    /**
+     * @return Returns the retention rules in the order of precedence
+     */
+    public List<RetentionRule> getRetentionRules() {
+        return retentionRules;
+    }
+
 }
@@ -17,43 +17,66 @@
  */
 package de.elomagic.dttool.dt;
 
-import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import picocli.CommandLine;
 
 import de.elomagic.dttool.AbstractRestClient;
 import de.elomagic.dttool.ConsolePrinter;
 import de.elomagic.dttool.DtToolException;
+import de.elomagic.dttool.HttpStatusException;
 import de.elomagic.dttool.JsonMapperFactory;
 import de.elomagic.dttool.StringFormatter;
 import de.elomagic.dttool.configuration.Configuration;
 import de.elomagic.dttool.dt.model.Component;
 import de.elomagic.dttool.dt.model.Project;
 import de.elomagic.dttool.dt.model.Violation;
+import de.elomagic.dttool.http.RequestBodies;
 
+import org.apache.commons.io.FileUtils;
 import org.cyclonedx.exception.ParseException;
 import org.cyclonedx.model.Bom;
 import org.cyclonedx.parsers.BomParserFactory;
 import org.jspecify.annotations.NonNull;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @CommandLine.Command
 public class DTrackClient extends AbstractRestClient implements StringFormatter {
 
     private static final ConsolePrinter LOGGER = ConsolePrinter.INSTANCE;
-    private final ObjectMapper mapper = JsonMapperFactory.create();
+    private static final String API_PATH = "/api/v1/";
+    /**
+     * Resources, whose responses are outdated by the modification of a resource. E.g. an uploaded BOM changes the
+     * components and the last BOM import of its project.
+     */
+    private static final Map<String, Set<String>> DEPENDENT_RESOURCES = Map.of(
+            "bom", Set.of("bom", "component", "project", "violation"),
+            "component", Set.of("bom", "component", "violation"),
+            "project", Set.of("bom", "component", "project", "violation"),
+            "tag", Set.of("project", "tag"));
 
     @CommandLine.Option(names = {"--baseUrl", "-u"}, description = "DTrack base URL")
     private String baseURL = Configuration.INSTANCE.getBaseUrl();
@@ -94,25 +117,53 @@ public class DTrackClient extends AbstractRestClient implements StringFormatter
     }
 
     /**
-     * Fetch all active project by internal pagination of {@link this#fetchProjects(int, int)}
+     * Fetch all active projects.
+     * <p>
+     * Collects the stream of {@link #streamAllProjects()}, so the pages are fetched the same way.
      *
-     * @return Returns a stream
+     * @return Returns the projects in page order
      */
     @NonNull
     public List<Project> fetchAllProjects() {
-        List<Project> projects = new ArrayList<>();
-        int size;
-        int page = 0;
+        try (Stream<Project> projects = streamAllProjects()) {
+            return projects.toList();
+        }
+    }
+
+    /**
+     * Stream all active projects page by page.
+     * <p>
+     * Projects will be parsed incrementally while the stream is consumed, so projects rejected by a filter of the
+     * stream are never retained. Close the stream to release prefetched pages when it is not consumed completely.
+     *
+     * @return Returns a lazy stream of projects in page order
+     */
+    @NonNull
+    public Stream<Project> streamAllProjects() {
         int limit = 1000;
+        return streamPages(page -> openPage("%s/api/v1/project?excludeInactive=true&limit=%s&page=%s".formatted(baseURL, limit, page)), limit, Project.class);
+    }
 
-        do {
-            page++;
-            List<Project> pageResult = fetchProjects(limit, page);
-            projects.addAll(pageResult);
-            size = pageResult.size();
-        } while (size > 0);
+    @NonNull
+    private HttpResponse<InputStream> openPage(@NonNull String url) {
+        try {
+            URI uri = URI.create(url);
+            HttpRequest request = createDefaultGET(uri);
 
-        return projects;
+            return executeRequest(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException | InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DtToolException(ex);
+        }
+    }
+
+    @NonNull
+    private <T> Stream<T> streamPages(@NonNull IntFunction<HttpResponse<InputStream>> pageOpener, int limit, @NonNull Class<T> type) {
+        PageIterator<T> iterator = new PageIterator<>(pageOpener, JsonMapperFactory.reader(type), limit, getParallelism());
+
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
     }
 
     /**
@@ -127,9 +178,9 @@ public class DTrackClient extends AbstractRestClient implements StringFormatter
     public List<Project> fetchProjectsByName(@NonNull String name, int limit, int page) {
         try {
             URI uri = URI.create(
-                    "%s/api/v1/project?name=%s&excludeInactive=false&limit=%s&page=%s".formatted(
+                    "%s/api/v1/project?name=%s&excludeInactive=true&limit=%s&page=%s".formatted(
                             baseURL,
-                            name,
+                            URLEncoder.encode(name, StandardCharsets.UTF_8),
                             limit,
                             page
                     )
@@ -143,6 +194,47 @@ public class DTrackClient extends AbstractRestClient implements StringFormatter
         }
     }
 
+    /**
+     * Stream all active projects which are tagged with the given tag page by page.
+     *
+     * @param tag Name of the tag
+     * @return Returns a lazy stream of projects in page order
+     */
+    @NonNull
+    public Stream<Project> streamProjectsByTag(@NonNull String tag) {
+        int limit = 1000;
+        return streamPages(page -> openPage("%s/api/v1/project/tag/%s?excludeInactive=true&limit=%s&page=%s".formatted(
+                baseURL,
+                URLEncoder.encode(tag, StandardCharsets.UTF_8),
+                limit,
+                page
+        )), limit, Project.class);
+    }
+
+    /**
+     * Fetch a project by its UUID regardless whether the project is active or not.
+     *
+     * @param uuid UUID of the project
+     * @return Returns the project or an empty optional when the project doesn't exist
+     */
+    @NonNull
+    public Optional<Project> fetchProject(@NonNull UUID uuid) {
+        try {
+            URI uri = URI.create("%s/api/v1/project/%s".formatted(baseURL, uuid));
+            HttpRequest request = createDefaultGET(uri);
+
+            return Optional.of(executeRequest(request, Project.class));
+        } catch (HttpStatusException ex) {
+            if (ex.getStatusCode() == 404) {
+                return Optional.empty();
+            }
+            throw ex;
+        } catch (IOException | InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DtToolException(ex);
+        }
+    }
+
     /**
      * Fetch all active project by internal pagination of {@link this#fetchProjects(int, int)}
      *
@@ -186,7 +278,7 @@ public class DTrackClient extends AbstractRestClient implements StringFormatter
             URI uri = URI.create("%s/api/v1/component/%s".formatted(baseURL, component.getUuid()));
             HttpRequest request = createDefaultGET(uri);
 
-            return mapper.readTree(executeRequest(request));
+            return executeRequest(request, JsonNode.class);
         } catch (IOException | InterruptedException ex) {
             Thread.currentThread().interrupt();
             throw new DtToolException(ex);
@@ -198,12 +290,13 @@ public class DTrackClient extends AbstractRestClient implements StringFormatter
         try {
             URI uri = URI.create("%s/api/v1/component".formatted(baseURL));
 
-            ObjectWriter writer = mapper.writer(new DefaultPrettyPrinter());
-            String payload = writer.writeValueAsString(root);
+            byte[] payload = JsonMapperFactory.writer(JsonMapperFactory.Style.COMPACT).writeValueAsBytes(root);
 
-            LOGGER.trace("Updating component > HTTP POST body={}", payload);
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace("Updating component > HTTP POST body={}", new String(payload, StandardCharsets.UTF_8));
+            }
 
-            HttpRequest request = createDefaultPOST(uri, HttpRequest.BodyPublishers.ofString(payload));
+            HttpRequest request = createDefaultPOST(uri, HttpRequest.BodyPublishers.ofByteArray(payload));
 
             return executeRequest(request, Component.class);
         } catch (IOException | InterruptedException ex) {
@@ -219,7 +312,7 @@ public class DTrackClient extends AbstractRestClient implements StringFormatter
             URI uri = URI.create("%s/api/v1/license/%s".formatted(baseURL, URLEncoder.encode(licenseId, StandardCharsets.UTF_8)));
             HttpRequest request = createDefaultGET(uri);
 
-            return mapper.readTree(executeRequest(request));
+            return executeRequest(request, JsonNode.class);
         } catch (IOException | InterruptedException ex) {
             Thread.currentThread().interrupt();
             throw new DtToolException(ex);
@@ -228,40 +321,100 @@ public class DTrackClient extends AbstractRestClient implements StringFormatter
 
     @NonNull
     public Bom fetchProjectBom(@NonNull Project project) {
+        return parseBom(fetchProjectBomContent(project));
+    }
+
+    /**
+     * Fetches the BOM of a project without parsing it.
+     *
+     * @param project Project of the BOM
+     * @return Returns the BOM as it is returned by DTrack
+     */
+    public byte @NonNull [] fetchProjectBomContent(@NonNull Project project) {
+        return fetchProjectBom(project, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Streams the BOM of a project without parsing it directly into a file.
+     *
+     * @param project Project of the BOM
+     * @param file Target file, which will be overwritten
+     * @return Returns the size of the file in bytes
+     */
+    public long downloadProjectBom(@NonNull Project project, @NonNull Path file) {
+        try {
+            fetchProjectBom(project, HttpResponse.BodyHandlers.ofFile(file));
+            return Files.size(file);
+        } catch (IOException | RuntimeException ex) {
+            // Don't leave the body of an error response as BOM
+            FileUtils.deleteQuietly(file.toFile());
+            throw ex instanceof DtToolException dex ? dex : new DtToolException(ex);
+        }
+    }
+
+    /**
+     * Opens the BOM of a project without parsing it.
+     *
+     * @param project Project of the BOM
+     * @return Returns the stream of the response body, which must be closed
+     */
+    @NonNull
+    public InputStream openProjectBom(@NonNull Project project) {
+        return fetchProjectBom(project, HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    @NonNull
+    private <T> T fetchProjectBom(@NonNull Project project, HttpResponse.@NonNull BodyHandler<T> bodyHandler) {
         try {
             LOGGER.info("Fetching BOM of project {} {} {}", project.getUuid(), project.getName(), project.getVersion());
             URI uri = URI.create("%s/api/v1/bom/cyclonedx/project/%s?download=false".formatted(baseURL, URLEncoder.encode(project.getUuid().toString(), StandardCharsets.UTF_8)));
             HttpRequest request = createDefaultGET(uri);
 
-            String content = executeRequest(request);
-            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
-
-            return BomParserFactory.createParser(bytes).parse(bytes);
-        } catch (IOException | InterruptedException | ParseException ex) {
+            return executeRequest(request, bodyHandler).body();
+        } catch (IOException | InterruptedException ex) {
             Thread.currentThread().interrupt();
             throw new DtToolException(ex);
         }
     }
 
+    @NonNull
+    public static Bom parseBom(byte @NonNull [] content) {
+        try {
+            return BomParserFactory.createParser(content).parse(content);
+        } catch (ParseException ex) {
+            throw new DtToolException(ex);
+        }
+    }
+
     public void updateBom(@NonNull String bom, @NonNull String projectName, @NonNull String projectVersion) {
+        updateBom(bom.getBytes(StandardCharsets.UTF_8), projectName, projectVersion);
+    }
+
+    /**
+     * Uploads a BOM.
+     * <p>
+     * The BOM is encoded with Base64 while it is sent, so the payload is never built as a whole in memory.
+     *
+     * @param bom Content of the BOM
+     * @param projectName Name of the project, which will be created when it doesn't exist
+     * @param projectVersion Version of the project
+     */
+    public void updateBom(byte @NonNull [] bom, @NonNull String projectName, @NonNull String projectVersion) {
         try {
             LOGGER.info("Upload BOM for project '{}' and version '{}'", projectName, projectVersion);
             URI uri = URI.create("%s/api/v1/bom".formatted(baseURL));
 
-            String base64 = Base64.getEncoder().encodeToString(bom.getBytes(StandardCharsets.UTF_8));
-
-            ObjectNode root = mapper.createObjectNode();
+            ObjectNode root = JsonNodeFactory.instance.objectNode();
             root.put("projectName", projectName)
                     .put("projectVersion", projectVersion)
-                    .put("autoCreate", true)
-                    .put("bom", base64);
-
-            ObjectWriter writer = mapper.writer(new DefaultPrettyPrinter());
-            String payload = writer.writeValueAsString(root);
+                    .put("autoCreate", true);
 
-            HttpRequest request = createDefaultPUT(uri, HttpRequest.BodyPublishers.ofString(payload));
+            // The Base64 encoded BOM is appended as last property of the object
+            String properties = JsonMapperFactory.writer(JsonMapperFactory.Style.COMPACT).writeValueAsString(root);
+            byte[] prefix = "%s,\"bom\":\"".formatted(properties.substring(0, properties.length() - 1)).getBytes(StandardCharsets.UTF_8);
+            byte[] suffix = "\"}".getBytes(StandardCharsets.UTF_8);
 
-            executeRequest(request);
+            executeUpload(uri, RequestBodies.base64(prefix, bom, suffix), RequestBodies.base64Length(prefix, bom, suffix));
         } catch (IOException | InterruptedException ex) {
             Thread.currentThread().interrupt();
             throw new DtToolException(ex);
@@ -269,9 +422,13 @@ public class DTrackClient extends AbstractRestClient implements StringFormatter
     }
 
     public void deleteProject(@NonNull Project project) {
+        LOGGER.info("Delete project {} {} {} {}", project.getUuid(), t2s(project.getLastBomImport()), project.getName(), project.getVersion());
+        deleteProject(project.getUuid());
+    }
+
+    public void deleteProject(@NonNull UUID uuid) {
         try {
-            LOGGER.info("Delete project {} {} {} {}", project.getUuid(), t2s(project.getLastBomImport()), project.getName(), project.getVersion());
-            URI uri = URI.create("%s/api/v1/project/%s".formatted(baseURL, project.getUuid()));
+            URI uri = URI.create("%s/api/v1/project/%s".formatted(baseURL, uuid));
             HttpRequest request = createDefaultDELETE(uri);
 
             executeRequest(request);
@@ -282,14 +439,38 @@ public class DTrackClient extends AbstractRestClient implements StringFormatter
     }
 
     public void tagProject(@NonNull Project project, @NonNull String tag) {
+        LOGGER.info("Tag project {} {} {} {}", project.getUuid(), t2s(project.getLastBomImport()), project.getName(), project.getVersion());
+        tagProjects(tag, List.of(project.getUuid()));
+    }
+
+    /**
+     * Assigns a tag to projects with a single request.
+     *
+     * @param tag Name of the tag
+     * @param uuids UUIDs of the projects
+     */
+    public void tagProjects(@NonNull String tag, @NonNull Collection<UUID> uuids) {
         try {
-            LOGGER.info("Tag project {} {} {} {}", project.getUuid(), t2s(project.getLastBomImport()), project.getName(), project.getVersion());
-            URI uri = URI.create("%s/api/v1/tag/%s/project".formatted(baseURL, tag));
-            String payload = "[ \"%s\" ]".formatted(project.getUuid());
-            HttpRequest request = createDefaultPOST(
-                    uri,
-                    HttpRequest.BodyPublishers.ofString(payload)
-            );
+            LOGGER.debug("Tag {} projects with '{}'", uuids.size(), tag);
+            HttpRequest request = createDefaultPOST(createTagProjectsURI(tag), createUUIDsPublisher(uuids));
+
+            executeRequest(request);
+        } catch (IOException | InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DtToolException(ex);
+        }
+    }
+
+    /**
+     * Removes a tag from projects with a single request.
+     *
+     * @param tag Name of the tag
+     * @param uuids UUIDs of the projects
+     */
+    public void untagProjects(@NonNull String tag, @NonNull Collection<UUID> uuids) {
+        try {
+            LOGGER.debug("Untag {} projects from '{}'", uuids.size(), tag);
+            HttpRequest request = createDefaultDELETE(createTagProjectsURI(tag), createUUIDsPublisher(uuids));
 
             executeRequest(request);
         } catch (IOException | InterruptedException ex) {
@@ -298,17 +479,27 @@ public class DTrackClient extends AbstractRestClient implements StringFormatter
         }
     }
 
+    @NonNull
+    private URI createTagProjectsURI(@NonNull String tag) {
+        return URI.create("%s/api/v1/tag/%s/project".formatted(baseURL, URLEncoder.encode(tag, StandardCharsets.UTF_8).replace("+", "%20")));
+    }
+
+    private HttpRequest.@NonNull BodyPublisher createUUIDsPublisher(@NonNull Collection<UUID> uuids) throws IOException {
+        List<String> payload = uuids.stream().map(UUID::toString).toList();
+
+        return HttpRequest.BodyPublishers.ofByteArray(JsonMapperFactory.writer(JsonMapperFactory.Style.COMPACT).writeValueAsBytes(payload));
+    }
+
     public void updateProject(@NonNull Project project) {
         try {
             LOGGER.info("Update project {} {} {} {}", project.getUuid(), t2s(project.getLastBomImport()), project.getName(), project.getVersion());
             URI uri = URI.create("%s/api/v1/project".formatted(baseURL));
 
-            ObjectWriter writer = mapper.writer(new DefaultPrettyPrinter());
-            String payload = writer.writeValueAsString(project);
+            byte[] payload = JsonMapperFactory.writer(Project.class, JsonMapperFactory.Style.COMPACT).writeValueAsBytes(project);
 
             HttpRequest request = createDefaultPOST(
                     uri,
-                    HttpRequest.BodyPublishers.ofString(payload)
+                    HttpRequest.BodyPublishers.ofByteArray(payload)
             );
 
             executeRequest(request);
@@ -317,4 +508,27 @@ public class DTrackClient extends AbstractRestClient implements StringFormatter
             throw new DtToolException(ex);
         }
     }
+
+    /**
+     * Returns the paths of the modified resource and of all resources, which depend on it.
+     */
+    @Override
+    @NonNull
+    protected Set<String> getModifiedPaths(@NonNull HttpRequest request) {
+        String path = request.uri().getPath();
+        int index = path.indexOf(API_PATH);
+        if (index < 0) {
+            return super.getModifiedPaths(request);
+        }
+
+        // Base URL might contain a context path
+        String root = path.substring(0, index + API_PATH.length());
+        String resource = path.substring(root.length()).split("/", 2)[0];
+
+        return DEPENDENT_RESOURCES
+                .getOrDefault(resource, Set.of(resource))
+                .stream()
+                .map(root::concat)
+                .collect(Collectors.toSet());
+    }
 }
@@ -0,0 +1,226 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.dt;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import de.elomagic.dttool.DtToolException;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Lazy iterator over the items of a paginated DTrack REST API resource.
+ * <p>
+ * Each page is parsed incrementally from the response stream, so only the current item will be held in memory. When
+ * the first page reports the total count of items, up to {@code prefetch} following pages will be requested in advance,
+ * otherwise pages will be requested one after another until an empty page is returned.
+ *
+ * @param <T> Type of the items
+ */
+final class PageIterator<T> implements Iterator<T>, Closeable {
+
+    private record PendingPage(int page, @NonNull Future<HttpResponse<InputStream>> response) {}
+
+    private final IntFunction<HttpResponse<InputStream>> pageOpener;
+    private final ObjectReader reader;
+    private final int limit;
+    private final int prefetch;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Deque<PendingPage> pending = new ArrayDeque<>();
+
+    private int window = 1;
+    private int nextPage = 1;
+    private long lastPage = Long.MAX_VALUE;
+    @Nullable
+    private JsonParser parser;
+    private int currentPage;
+    private int itemsInPage;
+    @Nullable
+    private T next;
+    private boolean finished;
+
+    /**
+     * @param pageOpener Function which requests a page, starting from 1, and returns the unread response
+     * @param reader Reader of a single item
+     * @param limit Limit count of items per page
+     * @param prefetch Maximum count of pages to request in advance
+     */
+    PageIterator(@NonNull IntFunction<HttpResponse<InputStream>> pageOpener, @NonNull ObjectReader reader, int limit, int prefetch) {
+        this.pageOpener = pageOpener;
+        this.reader = reader;
+        this.limit = limit;
+        this.prefetch = Math.max(1, prefetch);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+
+        try {
+            while (!finished) {
+                if (parser == null && !openNextPage()) {
+                    close();
+                    break;
+                }
+
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT) {
+                    next = reader.readValue(parser);
+                    itemsInPage++;
+                    return true;
+                } else if (token != JsonToken.END_ARRAY) {
+                    throw new DtToolException("Unexpected response of page %s, JSON object expected.".formatted(currentPage));
+                }
+
+                // End of page reached
+                parser.close();
+                parser = null;
+
+                if (itemsInPage == 0) {
+                    close();
+                }
+            }
+        } catch (IOException ex) {
+            close();
+            throw new DtToolException(ex);
+        } catch (RuntimeException ex) {
+            // Releases the current and the prefetched pages, also for users of the iterator which don't close it
+            close();
+            throw ex;
+        }
+
+        return false;
+    }
+
+    @Override
+    @NonNull
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        T item = next;
+        next = null;
+        return item;
+    }
+
+    private boolean openNextPage() throws IOException {
+        requestPages();
+
+        PendingPage page = pending.poll();
+        if (page == null) {
+            return false;
+        }
+
+        HttpResponse<InputStream> response = await(page.response());
+
+        if (page.page() == 1) {
+            response.headers().firstValueAsLong("X-Total-Count").ifPresent(total -> {
+                lastPage = (total + limit - 1) / limit;
+                window = prefetch;
+            });
+        }
+
+        currentPage = page.page();
+        parser = reader.createParser(response.body());
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new DtToolException("Unexpected response of page %s, JSON array expected.".formatted(page.page()));
+        }
+        itemsInPage = 0;
+
+        if (window > 1) {
+            // Prefetch following pages while the current page is being parsed
+            requestPages();
+        }
+
+        return true;
+    }
+
+    private void requestPages() {
+        while (pending.size() < window && nextPage <= lastPage) {
+            int page = nextPage++;
+            pending.add(new PendingPage(page, executor.submit(() -> pageOpener.apply(page))));
+        }
+    }
+
+    @NonNull
+    private HttpResponse<InputStream> await(@NonNull Future<HttpResponse<InputStream>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DtToolException(ex);
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof RuntimeException rex ? rex : new DtToolException(ex.getCause());
+        }
+    }
+
+    /**
+     * Stops the iteration and releases the current and all prefetched responses.
+     */
+    @Override
+    public void close() {
+        finished = true;
+
+        try {
+            if (parser != null) {
+                parser.close();
+                parser = null;
+            }
+        } catch (IOException ex) {
+            throw new DtToolException(ex);
+        } finally {
+            pending.forEach(p -> p.response().cancel(true));
+            pending.forEach(p -> {
+                if (p.response().state() == Future.State.SUCCESS) {
+                    closeQuietly(p.response().resultNow().body());
+                }
+            });
+            pending.clear();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void closeQuietly(@NonNull InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ex) {
+            // noop
+        }
+    }
+
+}
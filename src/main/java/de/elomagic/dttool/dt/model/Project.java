@@ -20,6 +20,7 @@ package de.elomagic.dttool.dt.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 
 import java.time.Instant;
@@ -31,6 +32,8 @@ import java.util.UUID;
 
 public class Project {
 
+    private static final long UNSET = Long.MIN_VALUE;
+
     @JsonProperty
     private UUID uuid;
     @JsonProperty
@@ -39,8 +42,20 @@ public class Project {
     private String version;
     @JsonProperty
     private String purl;
+    /**
+     * Epoch milliseconds, decoded once when the project is deserialized. Serialized and deserialized by the
+     * accessors below, the annotation only keeps the position of the property.
+     */
     @JsonProperty
-    private String lastBomImport;
+    private long lastBomImport = UNSET;
+    /**
+     * Original value of the last BOM import, when it wasn't in epoch milliseconds, so it's serialized unchanged.
+     */
+    private String lastBomImportText;
+    /**
+     * Zone of the original value, when it wasn't in epoch milliseconds, so the offset of the server is kept.
+     */
+    private ZoneId lastBomImportZone;
     @JsonProperty
     private Metrics metrics = new Metrics();
     @JsonProperty
@@ -110,19 +125,67 @@ public class Project {
         this.latest = latest;
     }
 
+    /**
+     * Returns the time of the last BOM import in the zone of the server response, or in the system default zone, when
+     * the response contains epoch milliseconds.
+     *
+     * @return Returns the time or null when unset
+     */
     @JsonIgnore
     @Nullable
     public ZonedDateTime getLastBomImport() {
-        if (lastBomImport == null || lastBomImport.isBlank()) {
-            return null;
+        return hasLastBomImport() ? ZonedDateTime.ofInstant(Instant.ofEpochMilli(lastBomImport), getLastBomImportZone()) : null;
+    }
+
+    /**
+     * @return Returns the zone of the last BOM import as in {@link #getLastBomImport()}
+     */
+    @JsonIgnore
+    @NonNull
+    public ZoneId getLastBomImportZone() {
+        return lastBomImportZone == null ? ZoneId.systemDefault() : lastBomImportZone;
+    }
+
+    @JsonIgnore
+    public boolean hasLastBomImport() {
+        return lastBomImport != UNSET;
+    }
+
+    /**
+     * Returns the time of the last BOM import without creating any date object.
+     *
+     * @return Returns epoch milliseconds or {@link Long#MIN_VALUE} when unset
+     */
+    @JsonIgnore
+    public long getLastBomImportEpochMillis() {
+        return lastBomImport;
+    }
+
+    @JsonProperty("lastBomImport")
+    @Nullable
+    private String getLastBomImportValue() {
+        if (lastBomImportText != null) {
+            return lastBomImportText;
         }
 
-        // Do of a bug in the REST API of DT, w e have to differ between epoch time and zoned date time
-        if (lastBomImport.matches("[\\d]+")) {
-            Instant instant = Instant.ofEpochMilli(Long.parseLong(lastBomImport));
-            return ZonedDateTime.ofInstant(instant, ZoneId.systemDefault());
+        return hasLastBomImport() ? Long.toString(lastBomImport) : null;
+    }
+
+    @JsonProperty("lastBomImport")
+    private void setLastBomImportValue(@Nullable String value) {
+        lastBomImportText = null;
+        lastBomImportZone = null;
+
+        if (value == null || value.isBlank()) {
+            lastBomImport = UNSET;
+        } else if (value.chars().allMatch(Character::isDigit)) {
+            // Do of a bug in the REST API of DT, we have to differ between epoch time and zoned date time
+            lastBomImport = Long.parseLong(value);
         } else {
-            return ZonedDateTime.parse(lastBomImport);
+            ZonedDateTime dateTime = ZonedDateTime.parse(value);
+            lastBomImport = dateTime.toInstant().toEpochMilli();
+            lastBomImportText = value;
+            lastBomImportZone = dateTime.getZone();
         }
     }
 
@@ -133,7 +196,7 @@ public class Project {
                 ", name='" + name + '\'' +
                 ", version='" + version + '\'' +
                 ", purl='" + purl + '\'' +
-                ", lastBomImport='" + lastBomImport + '\'' +
+                ", lastBomImport='" + getLastBomImportValue() + '\'' +
                 '}';
     }
 
@@ -0,0 +1,49 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.dto;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.UUID;
+
+/**
+ * Entry of the manifest of collected BOMs.
+ *
+ * @param uuid UUID of the project
+ * @param projectName Name of the project
+ * @param projectVersion Version of the project
+ * @param lastBomImport Last BOM import of the project in epoch milliseconds when the BOM was collected
+ * @param sha256 SHA-256 hash of the written BOM
+ * @param file Name of the written BOM file relative to the target
+ * @param size Size of the written BOM file in bytes
+ * @param lastModified Last modification of the written BOM file in epoch seconds, as precise as an entry of a ZIP file
+ */
+public record BomManifestEntryDTO(
+        @NonNull
+        UUID uuid,
+        String projectName,
+        String projectVersion,
+        long lastBomImport,
+        @NonNull
+        String sha256,
+        @NonNull
+        String file,
+        long size,
+        long lastModified
+) {
+}
@@ -0,0 +1,183 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.http;
+
+import de.elomagic.dttool.DtToolException;
+
+import org.jspecify.annotations.NonNull;
+
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Response which is replayed from a cached body.
+ *
+ * @param <T> Type of the body
+ */
+final class CachedResponse<T> implements HttpResponse<T> {
+
+    private final HttpRequest request;
+    private final HttpHeaders headers;
+    private final T body;
+
+    private CachedResponse(@NonNull HttpRequest request, @NonNull HttpHeaders headers, T body) {
+        this.request = request;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    /**
+     * Replays a cached body into the subscriber of the given body handler, like a response of the server would do.
+     *
+     * @param request Request of the response
+     * @param headers Cached headers
+     * @param content Cached body
+     * @param bodyHandler Handler of the body
+     * @return Returns the response
+     * @param <T> Type of the body
+     * @throws IOException Thrown when the subscriber fails
+     * @throws InterruptedException Thrown if the operation is interrupted
+     */
+    @NonNull
+    static <T> HttpResponse<T> replay(
+            @NonNull HttpRequest request,
+            @NonNull HttpHeaders headers,
+            byte @NonNull [] content,
+            @NonNull BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
+
+        ResponseInfo info = new ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return 200;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return headers;
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        };
+
+        BodySubscriber<T> subscriber = bodyHandler.apply(info);
+        subscriber.onSubscribe(new ReplaySubscription(subscriber, content));
+
+        try {
+            return new CachedResponse<>(request, headers, subscriber.getBody().toCompletableFuture().get());
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException iex) {
+                throw iex;
+            }
+            throw new DtToolException(ex.getCause());
+        }
+    }
+
+    @Override
+    public int statusCode() {
+        return 200;
+    }
+
+    @Override
+    public HttpRequest request() {
+        return request;
+    }
+
+    @Override
+    public Optional<HttpResponse<T>> previousResponse() {
+        return Optional.empty();
+    }
+
+    @Override
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    @Override
+    public T body() {
+        return body;
+    }
+
+    @Override
+    public Optional<SSLSession> sslSession() {
+        return Optional.empty();
+    }
+
+    @Override
+    public URI uri() {
+        return request.uri();
+    }
+
+    @Override
+    public HttpClient.Version version() {
+        return HttpClient.Version.HTTP_1_1;
+    }
+
+    /**
+     * Publishes the content as a single buffer on the first demand, so streaming subscribers like
+     * {@link BodyHandlers#ofInputStream()} receive it only when they read.
+     */
+    private static final class ReplaySubscription implements Flow.Subscription {
+
+        private final BodySubscriber<?> subscriber;
+        private final byte[] content;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private ReplaySubscription(@NonNull BodySubscriber<?> subscriber, byte @NonNull [] content) {
+            this.subscriber = subscriber;
+            this.content = content;
+        }
+
+        @Override
+        public void request(long n) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+
+            if (n <= 0) {
+                subscriber.onError(new IllegalArgumentException("Demand must be positive: " + n));
+                return;
+            }
+
+            if (content.length != 0) {
+                subscriber.onNext(List.of(ByteBuffer.wrap(content)));
+            }
+            subscriber.onComplete();
+        }
+
+        @Override
+        public void cancel() {
+            done.set(true);
+        }
+
+    }
+
+}
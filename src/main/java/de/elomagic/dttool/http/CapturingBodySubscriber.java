@@ -0,0 +1,97 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.http;
+
+import org.jspecify.annotations.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Body subscriber which passes the body through to another subscriber and keeps a copy of it.
+ * <p>
+ * The copy is handed over when the body is complete. Copying stops when the body exceeds the given limit.
+ *
+ * @param <T> Type of the body
+ */
+final class CapturingBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+    private final HttpResponse.BodySubscriber<T> delegate;
+    private final long maxBytes;
+    private final Consumer<byte[]> onComplete;
+
+    private ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+    CapturingBodySubscriber(HttpResponse.@NonNull BodySubscriber<T> delegate, long maxBytes, @NonNull Consumer<byte[]> onComplete) {
+        this.delegate = delegate;
+        this.maxBytes = maxBytes;
+        this.onComplete = onComplete;
+    }
+
+    @Override
+    public CompletionStage<T> getBody() {
+        return delegate.getBody();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        delegate.onSubscribe(subscription);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        if (captured != null) {
+            for (ByteBuffer item : items) {
+                // Copy before the delegate consumes the buffer
+                ByteBuffer buffer = item.duplicate();
+                if (captured.size() + (long) buffer.remaining() > maxBytes) {
+                    captured = null;
+                    break;
+                }
+
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                captured.writeBytes(bytes);
+            }
+        }
+
+        delegate.onNext(items);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        captured = null;
+        delegate.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        if (captured != null) {
+            onComplete.accept(captured.toByteArray());
+            captured = null;
+        }
+
+        delegate.onComplete();
+    }
+
+}
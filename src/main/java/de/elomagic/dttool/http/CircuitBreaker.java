@@ -0,0 +1,91 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.http;
+
+import de.elomagic.dttool.DtToolException;
+
+import org.jspecify.annotations.NonNull;
+
+import java.time.Duration;
+
+/**
+ * Fails fast, when a server is down.
+ * <p>
+ * After a count of consecutive failures the circuit opens and requests fail immediately. After a cool down a single
+ * trial request is permitted. When it succeeds the circuit closes again, otherwise it stays open for another cool down.
+ */
+public final class CircuitBreaker {
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final Duration coolDown;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    /**
+     * @param name Name of the protected resource, e.g. the host
+     * @param failureThreshold Count of consecutive failures which opens the circuit
+     * @param coolDown Time before a trial request is permitted
+     */
+    public CircuitBreaker(@NonNull String name, int failureThreshold, @NonNull Duration coolDown) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.coolDown = coolDown;
+    }
+
+    /**
+     * Checks whether a request is permitted.
+     *
+     * @throws DtToolException Thrown when the circuit is open
+     */
+    public synchronized void check() {
+        if (state == State.CLOSED) {
+            return;
+        }
+
+        long remaining = openedAt + coolDown.toMillis() - System.currentTimeMillis();
+        if (state == State.OPEN && remaining <= 0) {
+            // Permit a single trial request
+            state = State.HALF_OPEN;
+            return;
+        }
+
+        throw new DtToolException("%s is unavailable after %s consecutive failures. Failing fast for %s s".formatted(
+                name,
+                failures,
+                Math.max(1, remaining / 1000)));
+    }
+
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    public synchronized void recordFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+}
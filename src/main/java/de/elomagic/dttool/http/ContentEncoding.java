@@ -0,0 +1,190 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.http;
+
+import org.jspecify.annotations.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Support of compressed HTTP bodies.
+ */
+public final class ContentEncoding {
+
+    /**
+     * Value of the header {@code Accept-Encoding} for all supported encodings.
+     */
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+
+    private ContentEncoding() {
+    }
+
+    /**
+     * Returns a body handler which decompresses encoded bodies while they are received.
+     * <p>
+     * The given handler gets the decoded body and sees the response headers without {@code Content-Encoding} and
+     * {@code Content-Length}, so e.g. a cache stores the decoded body. Bodies with an unsupported encoding are passed
+     * through as they are.
+     *
+     * @param bodyHandler Handler of the decoded body
+     * @return Returns the decoding handler
+     * @param <T> Type of the body
+     */
+    public static <T> HttpResponse.@NonNull BodyHandler<T> decoding(HttpResponse.@NonNull BodyHandler<T> bodyHandler) {
+        return info -> {
+            String value = info.headers().firstValue(CONTENT_ENCODING).orElse("identity").trim().toLowerCase(Locale.ROOT);
+            DecodingBodySubscriber.Encoding encoding = switch (value) {
+                case "gzip", "x-gzip" -> DecodingBodySubscriber.Encoding.GZIP;
+                case "deflate" -> DecodingBodySubscriber.Encoding.DEFLATE;
+                default -> DecodingBodySubscriber.Encoding.IDENTITY;
+            };
+
+            HttpResponse.ResponseInfo decodedInfo = encoding == DecodingBodySubscriber.Encoding.IDENTITY ? info : new DecodedResponseInfo(info);
+
+            return new DecodingBodySubscriber<>(bodyHandler.apply(decodedInfo), encoding);
+        };
+    }
+
+    /**
+     * Compresses a request body with gzip while it is sent.
+     * <p>
+     * Chunks of the content are compressed on demand, so neither the content nor the compressed content is held in
+     * memory as a whole. The content can be iterated several times, e.g. when a request is repeated.
+     *
+     * @param content Chunks of the content
+     * @return Returns the chunks of the gzip compressed content
+     */
+    @NonNull
+    public static Iterable<byte[]> gzip(@NonNull Iterable<byte[]> content) {
+        return () -> new GzipIterator(content.iterator());
+    }
+
+    /**
+     * Iterator of gzip compressed chunks.
+     * <p>
+     * The native resources of the compressor are held from the first chunk until the last chunk or a failure. An
+     * iteration which is abandoned in between, e.g. when the server rejects the request early, leaves them to the
+     * cleaner of the compressor.
+     */
+    private static final class GzipIterator implements Iterator<byte[]> {
+
+        private static final int CHUNK_SIZE = 64 * 1024;
+
+        private final Iterator<byte[]> content;
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(CHUNK_SIZE);
+        private GZIPOutputStream gzip;
+        private long uncompressedBytes;
+        private long compressedBytes;
+        private boolean finished;
+
+        private GzipIterator(@NonNull Iterator<byte[]> content) {
+            this.content = content;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !finished;
+        }
+
+        @Override
+        public byte[] next() {
+            if (finished) {
+                throw new NoSuchElementException();
+            }
+
+            try {
+                if (gzip == null) {
+                    gzip = new GZIPOutputStream(out, CHUNK_SIZE);
+                }
+
+                while (out.size() < CHUNK_SIZE && content.hasNext()) {
+                    byte[] chunk = content.next();
+                    uncompressedBytes += chunk.length;
+                    gzip.write(chunk);
+                }
+
+                if (!content.hasNext()) {
+                    // Writes the trailer and releases the compressor
+                    gzip.close();
+                    finished = true;
+                }
+            } catch (IOException ex) {
+                abort();
+                throw new UncheckedIOException(ex);
+            } catch (RuntimeException ex) {
+                abort();
+                throw ex;
+            }
+
+            byte[] compressed = out.toByteArray();
+            out.reset();
+            compressedBytes += compressed.length;
+
+            if (finished) {
+                TransferStatistics.INSTANCE.addSent(uncompressedBytes, compressedBytes);
+            }
+
+            return compressed;
+        }
+
+        private void abort() {
+            finished = true;
+            try {
+                if (gzip != null) {
+                    gzip.close();
+                }
+            } catch (IOException ex) {
+                // Compressor is released anyway
+            }
+        }
+
+    }
+
+    private record DecodedResponseInfo(HttpResponse.@NonNull ResponseInfo info) implements HttpResponse.ResponseInfo {
+
+        @Override
+        public int statusCode() {
+            return info.statusCode();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return HttpHeaders.of(
+                    info.headers().map(),
+                    (name, value) -> !CONTENT_ENCODING.equalsIgnoreCase(name) && !"Content-Length".equalsIgnoreCase(name));
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return info.version();
+        }
+
+    }
+
+}
@@ -0,0 +1,288 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.http;
+
+import org.jspecify.annotations.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Body subscriber which decompresses a gzip or deflate encoded body while it is received.
+ * <p>
+ * Every received buffer is inflated immediately and the decoded buffers are passed to another subscriber, so the
+ * compressed body is never buffered as a whole. Bodies without encoding are passed through. In both cases the bytes
+ * received and the decoded bytes are counted in {@link TransferStatistics}.
+ *
+ * @param <T> Type of the body
+ */
+final class DecodingBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+    enum Encoding { IDENTITY, GZIP, DEFLATE }
+
+    private enum State { HEADER, BODY, TRAILER, DONE }
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final HttpResponse.BodySubscriber<T> delegate;
+    private final Encoding encoding;
+    private final CRC32 crc = new CRC32();
+    // Collects the bytes of a gzip header or trailer, which might be split over buffers
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    private Flow.Subscription subscription;
+    private Inflater inflater;
+    private State state = State.HEADER;
+    private long receivedBytes;
+    private long decodedBytes;
+    private boolean failed;
+
+    DecodingBodySubscriber(HttpResponse.@NonNull BodySubscriber<T> delegate, @NonNull Encoding encoding) {
+        this.delegate = delegate;
+        this.encoding = encoding;
+    }
+
+    @Override
+    public CompletionStage<T> getBody() {
+        return delegate.getBody();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        delegate.onSubscribe(subscription);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        if (failed) {
+            return;
+        }
+
+        if (encoding == Encoding.IDENTITY) {
+            long size = items.stream().mapToLong(ByteBuffer::remaining).sum();
+            receivedBytes += size;
+            decodedBytes += size;
+            delegate.onNext(items);
+            return;
+        }
+
+        List<ByteBuffer> decoded = new ArrayList<>();
+        try {
+            for (ByteBuffer item : items) {
+                receivedBytes += item.remaining();
+                decode(item, decoded);
+            }
+        } catch (IOException | DataFormatException ex) {
+            subscription.cancel();
+            fail(ex instanceof IOException ? ex : new ZipException("Invalid %s encoded response body: %s".formatted(encoding, ex.getMessage())));
+            return;
+        }
+
+        if (decoded.isEmpty()) {
+            // Nothing to pass yet, so the demand of the delegate is still open
+            subscription.request(1);
+        } else {
+            delegate.onNext(decoded);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        if (!failed) {
+            fail(throwable);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        if (failed) {
+            return;
+        }
+
+        boolean truncated = encoding != Encoding.IDENTITY
+                && (state == State.BODY || state == State.TRAILER || pending.size() != 0);
+        if (truncated) {
+            fail(new EOFException("Unexpected end of %s encoded response body".formatted(encoding)));
+            return;
+        }
+
+        end();
+        TransferStatistics.INSTANCE.addReceived(receivedBytes, decodedBytes);
+        delegate.onComplete();
+    }
+
+    private void fail(@NonNull Throwable throwable) {
+        failed = true;
+        end();
+        delegate.onError(throwable);
+    }
+
+    private void end() {
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
+
+    private void decode(@NonNull ByteBuffer input, @NonNull List<ByteBuffer> decoded) throws IOException, DataFormatException {
+        while (input.hasRemaining()) {
+            switch (state) {
+                case HEADER -> readHeader(input, decoded);
+                case BODY -> inflate(input, decoded);
+                case TRAILER -> readTrailer(input);
+                case DONE -> input.position(input.limit());
+            }
+        }
+    }
+
+    private void readHeader(@NonNull ByteBuffer input, @NonNull List<ByteBuffer> decoded) throws IOException, DataFormatException {
+        pending.write(input.get());
+        byte[] header = pending.toByteArray();
+
+        if (encoding == Encoding.GZIP) {
+            if (gzipHeaderLength(header) != -1) {
+                pending.reset();
+                crc.reset();
+                inflater = inflater == null ? new Inflater(true) : inflater;
+                inflater.reset();
+                state = State.BODY;
+            }
+        } else if (header.length == 2) {
+            // Content encoding "deflate" means zlib format, but some servers send a raw deflate stream
+            boolean zlib = (header[0] & 0x0f) == 8 && (((header[0] & 0xff) << 8) | (header[1] & 0xff)) % 31 == 0;
+            pending.reset();
+            inflater = new Inflater(!zlib);
+            state = State.BODY;
+            inflate(ByteBuffer.wrap(header), decoded);
+        }
+    }
+
+    private void inflate(@NonNull ByteBuffer input, @NonNull List<ByteBuffer> decoded) throws DataFormatException {
+        // The position of the input is advanced by the inflater
+        inflater.setInput(input);
+
+        while (true) {
+            byte[] chunk = new byte[CHUNK_SIZE];
+            int count = inflater.inflate(chunk);
+            if (count > 0) {
+                crc.update(chunk, 0, count);
+                decodedBytes += count;
+                decoded.add(ByteBuffer.wrap(chunk, 0, count));
+            }
+
+            if (inflater.finished()) {
+                state = encoding == Encoding.GZIP ? State.TRAILER : State.DONE;
+                return;
+            } else if (inflater.needsDictionary()) {
+                throw new DataFormatException("Preset dictionary is not supported");
+            } else if (count == 0) {
+                // Input consumed
+                return;
+            }
+        }
+    }
+
+    private void readTrailer(@NonNull ByteBuffer input) throws ZipException {
+        while (input.hasRemaining() && pending.size() < GZIP_TRAILER_LENGTH) {
+            pending.write(input.get());
+        }
+
+        if (pending.size() < GZIP_TRAILER_LENGTH) {
+            return;
+        }
+
+        ByteBuffer trailer = ByteBuffer.wrap(pending.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        pending.reset();
+        if ((trailer.getInt() & 0xffffffffL) != crc.getValue() || (trailer.getInt() & 0xffffffffL) != (inflater.getBytesWritten() & 0xffffffffL)) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+
+        // A gzip body might consist of concatenated members
+        state = State.HEADER;
+    }
+
+    /**
+     * Returns the length of a gzip member header.
+     *
+     * @param header Bytes of the header received so far
+     * @return Returns the length of the header or -1 when the header is not complete yet
+     * @throws ZipException Thrown when the bytes are not a gzip header
+     */
+    static int gzipHeaderLength(byte @NonNull [] header) throws ZipException {
+        if (header.length >= 2 && ((header[0] & 0xff) != 0x1f || (header[1] & 0xff) != 0x8b)) {
+            throw new ZipException("Not in GZIP format");
+        } else if (header.length >= 3 && header[2] != 8) {
+            throw new ZipException("Unsupported compression method");
+        } else if (header.length < 10) {
+            return -1;
+        }
+
+        int flags = header[3];
+        int position = 10;
+        if ((flags & FEXTRA) != 0) {
+            if (header.length < position + 2) {
+                return -1;
+            }
+            position += 2 + ((header[position] & 0xff) | ((header[position + 1] & 0xff) << 8));
+        }
+        if ((flags & FNAME) != 0) {
+            position = skipZeroTerminated(header, position);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            position = skipZeroTerminated(header, position);
+        }
+        if ((flags & FHCRC) != 0 && position != -1) {
+            position += 2;
+        }
+
+        return position != -1 && header.length >= position ? position : -1;
+    }
+
+    private static int skipZeroTerminated(byte @NonNull [] header, int position) {
+        if (position == -1) {
+            return -1;
+        }
+
+        for (int i = position; i < header.length; i++) {
+            if (header[i] == 0) {
+                return i + 1;
+            }
+        }
+
+        return -1;
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.http;
+
+/**
+ * Token bucket which limits the rate of requests.
+ * <p>
+ * The bucket holds up to one second of tokens, so short bursts are allowed. Callers which find the bucket empty
+ * reserve a future token and wait for it, so the order of callers is kept.
+ */
+public final class RateLimiter {
+
+    private final double permitsPerSecond;
+    private final double capacity;
+
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+
+    /**
+     * @param permitsPerSecond Maximum rate of requests. A value less than or equal 0 disables the limit
+     */
+    public RateLimiter(double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = Math.max(1, permitsPerSecond);
+        this.tokens = capacity;
+    }
+
+    /**
+     * Waits until a request is permitted.
+     *
+     * @throws InterruptedException Thrown if the operation is interrupted
+     */
+    public void acquire() throws InterruptedException {
+        if (permitsPerSecond <= 0) {
+            return;
+        }
+
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerSecond / 1_000_000_000d);
+        lastRefill = now;
+
+        tokens -= 1;
+
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerSecond * 1_000_000_000d);
+    }
+
+}
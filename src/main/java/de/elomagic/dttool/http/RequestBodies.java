@@ -0,0 +1,93 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.http;
+
+import org.jspecify.annotations.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Request bodies which are produced chunk by chunk while they are sent.
+ */
+public final class RequestBodies {
+
+    // Multiple of 3, so chunks encode to Base64 without padding in between
+    private static final int BASE64_CHUNK_SIZE = 48 * 1024;
+
+    private RequestBodies() {
+    }
+
+    /**
+     * Returns a body of some content encoded with Base64 between a prefix and a suffix, e.g. a JSON object with a
+     * Base64 encoded string property.
+     * <p>
+     * The content is encoded chunk by chunk when the body is sent, so the encoded content is never held in memory as a
+     * whole.
+     *
+     * @param prefix Bytes in front of the encoded content
+     * @param content Content to encode
+     * @param suffix Bytes behind the encoded content
+     * @return Returns the chunks of the body, which can be iterated several times
+     */
+    @NonNull
+    public static Iterable<byte[]> base64(byte @NonNull [] prefix, byte @NonNull [] content, byte @NonNull [] suffix) {
+        return () -> new Iterator<>() {
+            private int position = -1;
+
+            @Override
+            public boolean hasNext() {
+                return position <= content.length;
+            }
+
+            @Override
+            public byte[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                } else if (position == -1) {
+                    position = 0;
+                    return prefix;
+                } else if (position == content.length) {
+                    position++;
+                    return suffix;
+                }
+
+                int length = Math.min(BASE64_CHUNK_SIZE, content.length - position);
+                ByteBuffer encoded = Base64.getEncoder().encode(ByteBuffer.wrap(content, position, length));
+                position += length;
+
+                return encoded.array();
+            }
+        };
+    }
+
+    /**
+     * Returns the length of a body of {@link #base64(byte[], byte[], byte[])}.
+     *
+     * @param prefix Bytes in front of the encoded content
+     * @param content Content to encode
+     * @param suffix Bytes behind the encoded content
+     * @return Returns the count of bytes
+     */
+    public static long base64Length(byte @NonNull [] prefix, byte @NonNull [] content, byte @NonNull [] suffix) {
+        return prefix.length + 4L * ((content.length + 2) / 3) + suffix.length;
+    }
+
+}
@@ -0,0 +1,415 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.http;
+
+
+import de.elomagic.dttool.ConsolePrinter;
+import de.elomagic.dttool.DtToolException;
+import de.elomagic.dttool.JsonMapperFactory;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache of HTTP GET responses.
+ * <p>
+ * Every response is stored in a single file, containing the metadata and the body. Entries are fresh for the TTL.
+ * Afterward they are revalidated with a conditional request, when the server returned an ETag or Last-Modified
+ * header. When the cache exceeds its maximum size, the least recently used entries are evicted.
+ */
+public final class ResponseCache {
+
+    public static final Path DEFAULT_DIRECTORY = Path.of(System.getProperty("user.home"), ".dt-tool", "cache");
+
+    private static final ConsolePrinter LOGGER = ConsolePrinter.INSTANCE;
+    private static final String SUFFIX = ".entry";
+    // Hop-by-hop and transport headers are not part of the cached representation
+    private static final Set<String> SKIPPED_HEADERS = Set.of("connection", "content-encoding", "content-length", "keep-alive", "transfer-encoding", ":status");
+
+    /**
+     * Metadata of a cached response.
+     *
+     * @param uri URI of the request
+     * @param storedAt Time in epoch milliseconds, when the response was stored or revalidated
+     * @param headers Headers of the response
+     */
+    private record Meta(@NonNull String uri, long storedAt, @NonNull Map<String, List<String>> headers) {}
+
+    /**
+     * A cached response.
+     */
+    public static final class Entry {
+
+        private final String key;
+        private final Meta meta;
+        private final byte[] body;
+
+        private Entry(@NonNull String key, @NonNull Meta meta, byte @NonNull [] body) {
+            this.key = key;
+            this.meta = meta;
+            this.body = body;
+        }
+
+        public boolean isFresh(@NonNull Duration ttl) {
+            return System.currentTimeMillis() - meta.storedAt() < ttl.toMillis();
+        }
+
+        /**
+         * Adds the validators of the cached response, so the server can answer with 304 when nothing changed.
+         *
+         * @param request Request to send
+         * @return Returns the conditional request or the given request when the response had no validators
+         */
+        @NonNull
+        public HttpRequest toConditionalRequest(@NonNull HttpRequest request) {
+            String etag = header("ETag");
+            String lastModified = header("Last-Modified");
+
+            if (etag == null && lastModified == null) {
+                return request;
+            }
+
+            HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+            if (etag != null) {
+                builder.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                builder.header("If-Modified-Since", lastModified);
+            }
+
+            return builder.build();
+        }
+
+        /**
+         * Replays the cached response.
+         *
+         * @param request Request of the response
+         * @param bodyHandler Handler of the body
+         * @return Returns the response
+         * @param <T> Type of the body
+         * @throws IOException Thrown when the body handler fails
+         * @throws InterruptedException Thrown if the operation is interrupted
+         */
+        @NonNull
+        public <T> HttpResponse<T> toResponse(@NonNull HttpRequest request, HttpResponse.@NonNull BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
+            return CachedResponse.replay(request, HttpHeaders.of(meta.headers(), (name, value) -> true), body, bodyHandler);
+        }
+
+        @Nullable
+        private String header(@NonNull String name) {
+            return meta
+                    .headers()
+                    .entrySet()
+                    .stream()
+                    .filter(e -> e.getKey().equalsIgnoreCase(name) && !e.getValue().isEmpty())
+                    .map(e -> e.getValue().getFirst())
+                    .findFirst()
+                    .orElse(null);
+        }
+
+    }
+
+    private final Path directory;
+    private final Duration ttl;
+    private final long maxBytes;
+    // Entry sizes in order of the last access
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(64, 0.75f, true);
+    // Request paths of the entries, which are known
+    private final Map<String, String> entryPaths = new HashMap<>();
+
+    private long totalBytes;
+    private boolean indexLoaded;
+
+    /**
+     * @param directory Directory of the cache files
+     * @param ttl Time how long a response is used without asking the server
+     * @param maxBytes Maximum size of all cached responses
+     */
+    public ResponseCache(@NonNull Path directory, @NonNull Duration ttl, long maxBytes) {
+        this.directory = directory;
+        this.ttl = ttl;
+        this.maxBytes = maxBytes;
+    }
+
+    @NonNull
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Creates the key of a request. The API key is part of the key, because responses depend on its permissions.
+     *
+     * @param apiKey API key of the request
+     * @param uri URI of the request
+     * @return Returns the key
+     */
+    @NonNull
+    public static String key(@Nullable String apiKey, @NonNull URI uri) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(apiKey).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(uri.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new DtToolException(ex);
+        }
+    }
+
+    /**
+     * Returns a cached response.
+     *
+     * @param key Key of the request
+     * @return Returns the response or an empty optional when not cached
+     */
+    @NonNull
+    public Optional<Entry> get(@NonNull String key) {
+        Path file = file(key);
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            Meta meta = readMeta(in);
+            byte[] body = in.readAllBytes();
+
+            synchronized (this) {
+                loadIndex();
+                // Mark as recently used
+                index.get(key);
+                entryPaths.put(key, URI.create(meta.uri()).getPath());
+            }
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+
+            return Optional.of(new Entry(key, meta, body));
+        } catch (IOException ex) {
+            // Missing, evicted by another process or corrupt
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns a body handler which stores the body of a successful response when it is complete.
+     *
+     * @param key Key of the request
+     * @param uri URI of the request
+     * @param bodyHandler Handler of the body
+     * @return Returns the handler
+     * @param <T> Type of the body
+     */
+    public <T> HttpResponse.@NonNull BodyHandler<T> storingHandler(@NonNull String key, @NonNull URI uri, HttpResponse.@NonNull BodyHandler<T> bodyHandler) {
+        return info -> switch (info.statusCode()) {
+            case 200 -> new CapturingBodySubscriber<>(
+                    bodyHandler.apply(info),
+                    maxBytes / 4,
+                    body -> put(key, uri, info.headers(), body));
+            // Body of the cached response will be used
+            case 304 -> HttpResponse.BodySubscribers.replacing(null);
+            default -> bodyHandler.apply(info);
+        };
+    }
+
+    /**
+     * Marks a cached response as revalidated by the server.
+     *
+     * @param entry Cached response
+     */
+    public void touch(@NonNull Entry entry) {
+        write(entry.key, new Meta(entry.meta.uri(), System.currentTimeMillis(), entry.meta.headers()), entry.body);
+    }
+
+    /**
+     * Removes the cached responses of the given paths and of all paths below, e.g. after the data on the server was
+     * modified.
+     *
+     * @param paths Paths of the modified resources, e.g. "/api/v1/project"
+     */
+    public synchronized void invalidate(@NonNull Collection<String> paths) {
+        loadIndex();
+
+        int count = 0;
+        Iterator<Map.Entry<String, Long>> iterator = index.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            // Paths of entries of previous runs are read once. Unreadable entries are removed
+            String path = entryPaths.computeIfAbsent(entry.getKey(), this::readPath);
+            if (path == null || paths.stream().anyMatch(p -> path.equals(p) || path.startsWith(p + "/"))) {
+                deleteQuietly(file(entry.getKey()));
+                entryPaths.remove(entry.getKey());
+                totalBytes -= entry.getValue();
+                iterator.remove();
+                count++;
+            }
+        }
+
+        if (count > 0) {
+            LOGGER.debug("Invalidated {} cached responses of {}", count, paths);
+        }
+    }
+
+    private void put(@NonNull String key, @NonNull URI uri, @NonNull HttpHeaders headers, byte @NonNull [] body) {
+        Map<String, List<String>> map = new LinkedHashMap<>();
+        headers.map().forEach((name, values) -> {
+            if (!SKIPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                map.put(name, values);
+            }
+        });
+
+        write(key, new Meta(uri.toString(), System.currentTimeMillis(), map), body);
+    }
+
+    private void write(@NonNull String key, @NonNull Meta meta, byte @NonNull [] body) {
+        try {
+            Files.createDirectories(directory);
+
+            ByteArrayOutputStream metaBytes = new ByteArrayOutputStream();
+            JsonMapperFactory.writer(Meta.class, JsonMapperFactory.Style.COMPACT).writeValue(metaBytes, meta);
+
+            // Write into a temporary file first, so readers never see a partial entry
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+                out.writeInt(metaBytes.size());
+                metaBytes.writeTo(out);
+                out.write(body);
+            }
+            long size = Files.size(temp);
+            Files.move(temp, file(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            synchronized (this) {
+                loadIndex();
+                Long previous = index.put(key, size);
+                entryPaths.put(key, URI.create(meta.uri()).getPath());
+                totalBytes += size - (previous == null ? 0 : previous);
+                evict();
+            }
+        } catch (IOException ex) {
+            // A cache must never break a request
+            LOGGER.debug("Unable to cache response of {}: {}", meta.uri(), ex.getMessage());
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = index.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            deleteQuietly(file(eldest.getKey()));
+            entryPaths.remove(eldest.getKey());
+            totalBytes -= eldest.getValue();
+            iterator.remove();
+        }
+    }
+
+    private void loadIndex() {
+        if (indexLoaded) {
+            return;
+        }
+
+        indexLoaded = true;
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        // Least recently used entries of previous runs first
+        try (Stream<Path> files = Files.list(directory)) {
+            files
+                    .filter(f -> f.getFileName().toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparing(ResponseCache::lastModified))
+                    .forEach(f -> {
+                        String name = f.getFileName().toString();
+                        long size = size(f);
+                        index.put(name.substring(0, name.length() - SUFFIX.length()), size);
+                        totalBytes += size;
+                    });
+        } catch (IOException ex) {
+            LOGGER.debug("Unable to read cache directory {}: {}", directory, ex.getMessage());
+        }
+    }
+
+    @NonNull
+    private static Meta readMeta(@NonNull DataInputStream in) throws IOException {
+        byte[] metaBytes = new byte[in.readInt()];
+        in.readFully(metaBytes);
+        return JsonMapperFactory.reader(Meta.class).readValue(metaBytes);
+    }
+
+    @Nullable
+    private String readPath(@NonNull String key) {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file(key)))) {
+            return URI.create(readMeta(in).uri()).getPath();
+        } catch (IOException | IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    @NonNull
+    private Path file(@NonNull String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    @NonNull
+    private static FileTime lastModified(@NonNull Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException ex) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long size(@NonNull Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    private static void deleteQuietly(@NonNull Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            LOGGER.debug("Unable to delete cache file {}: {}", file, ex.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.http;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether and when a failed request is repeated.
+ * <p>
+ * Only idempotent requests are repeated, after an I/O error or when the server is overloaded or unavailable. PUT is
+ * not repeated, because DTrack enqueues every uploaded BOM again. The
+ * delay grows exponentially with a random jitter, so concurrent clients don't retry in lockstep. A delay requested by
+ * the server with the Retry-After header takes precedence.
+ */
+public final class RetryPolicy {
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS", "DELETE");
+    private static final Set<Integer> RETRYABLE_STATUS_CODES = Set.of(429, 502, 503, 504);
+    private static final Duration MAX_DELAY = Duration.ofMinutes(2);
+
+    private final int maxRetries;
+    private final Duration baseDelay;
+
+    /**
+     * @param maxRetries Maximum count of retries per request
+     * @param baseDelay Delay before the first retry
+     */
+    public RetryPolicy(int maxRetries, @NonNull Duration baseDelay) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.baseDelay = baseDelay;
+    }
+
+    public boolean isRetryable(@NonNull String method, int attempt) {
+        return attempt < maxRetries && IDEMPOTENT_METHODS.contains(method);
+    }
+
+    public static boolean isRetryableStatus(int statusCode) {
+        return RETRYABLE_STATUS_CODES.contains(statusCode);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Returns the delay before the next attempt.
+     *
+     * @param attempt Count of failed attempts so far, starting with 0
+     * @param retryAfter Value of the Retry-After header or null
+     * @return Returns the delay
+     */
+    @NonNull
+    public Duration delay(int attempt, @Nullable String retryAfter) {
+        Duration requested = parseRetryAfter(retryAfter);
+        if (requested != null) {
+            return requested.compareTo(MAX_DELAY) > 0 ? MAX_DELAY : requested;
+        }
+
+        long exponential = baseDelay.toMillis() << Math.min(attempt, 16);
+        long capped = Math.min(exponential, MAX_DELAY.toMillis());
+        // Equal jitter, at least half of the delay
+        return Duration.ofMillis(capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1));
+    }
+
+    /**
+     * Parses the Retry-After header, which contains either seconds or an HTTP date.
+     *
+     * @param value Value of the header
+     * @return Returns the delay or null when the value is unset or invalid
+     */
+    @Nullable
+    static Duration parseRetryAfter(@Nullable String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+
+        String trimmed = value.trim();
+        try {
+            if (trimmed.chars().allMatch(Character::isDigit)) {
+                return Duration.ofSeconds(Long.parseLong(trimmed));
+            }
+
+            Duration delay = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME));
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (NumberFormatException | DateTimeParseException ex) {
+            return null;
+        }
+    }
+
+}
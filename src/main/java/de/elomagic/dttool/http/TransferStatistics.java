@@ -0,0 +1,107 @@
+/*
+ * DT-Tool
+ * Copyright (c) 2024-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.dttool.http;
+
+import de.elomagic.dttool.ConsolePrinter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the bytes transferred with DTrack, on the wire and before compression.
+ */
+public final class TransferStatistics {
+
+    public static final TransferStatistics INSTANCE = new TransferStatistics();
+
+    private static final ConsolePrinter LOGGER = ConsolePrinter.INSTANCE;
+
+    private final LongAdder receivedBytes = new LongAdder();
+    private final LongAdder decodedBytes = new LongAdder();
+    private final LongAdder sentBytes = new LongAdder();
+    private final LongAdder uncompressedSentBytes = new LongAdder();
+
+    private TransferStatistics() {
+    }
+
+    /**
+     * @param received Bytes of a response body received on the wire
+     * @param decoded Bytes of the response body after decompression
+     */
+    public void addReceived(long received, long decoded) {
+        receivedBytes.add(received);
+        decodedBytes.add(decoded);
+    }
+
+    /**
+     * @param uncompressed Bytes of a request body before compression
+     * @param sent Bytes of the request body sent on the wire
+     */
+    public void addSent(long uncompressed, long sent) {
+        uncompressedSentBytes.add(uncompressed);
+        sentBytes.add(sent);
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes.sum();
+    }
+
+    public long getDecodedBytes() {
+        return decodedBytes.sum();
+    }
+
+    public long getSentBytes() {
+        return sentBytes.sum();
+    }
+
+    public long getUncompressedSentBytes() {
+        return uncompressedSentBytes.sum();
+    }
+
+    public void reset() {
+        receivedBytes.reset();
+        decodedBytes.reset();
+        sentBytes.reset();
+        uncompressedSentBytes.reset();
+    }
+
+    public void logSummary() {
+        long decoded = getDecodedBytes();
+        long uncompressed = getUncompressedSentBytes();
+
+        if (decoded != 0) {
+            LOGGER.info(
+                    "Received {} KiB of response bodies with {} KiB on the wire ({}% saved)",
+                    decoded / 1024,
+                    getReceivedBytes() / 1024,
+                    saved(decoded, getReceivedBytes()));
+        }
+
+        if (uncompressed != 0) {
+            LOGGER.info(
+                    "Sent {} KiB of compressed request bodies with {} KiB on the wire ({}% saved)",
+                    uncompressed / 1024,
+                    getSentBytes() / 1024,
+                    saved(uncompressed, getSentBytes()));
+        }
+    }
+
+    private static String saved(long content, long wire) {
+        return "%.1f".formatted(100d * (content - wire) / content);
+    }
+
+}
@@ -71,8 +71,8 @@ public class SpdxLicenseManager {
             );
 
             SpdxLicenses licenses = JsonMapperFactory
-                    .create()
-                    .readValue(resource, SpdxLicenses.class);
+                    .reader(SpdxLicenses.class)
+                    .readValue(resource);
 
             load(licenses);
         } catch (IOException ex) {
@@ -0,0 +1,62 @@
+package de.elomagic.dttool;
+
+import de.elomagic.dttool.configuration.Configuration;
+import de.elomagic.dttool.dt.DTrackClient;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class AbstractRestClientTest {
+
+    private static AbstractRestClient client(boolean ignoreCertificate) {
+        AbstractRestClient client = new DTrackClient();
+        client.ignoreCertificate = ignoreCertificate;
+        client.apiKey = "key";
+        return client;
+    }
+
+    @Test
+    void testHttpClientIsSharedByClients() {
+        HttpClient shared = client(false).getHttpClient();
+
+        assertSame(shared, client(false).getHttpClient());
+        assertSame(client(true).getHttpClient(), client(true).getHttpClient());
+        // Without TLS certificate check, the connections must not be shared
+        assertNotSame(shared, client(true).getHttpClient());
+    }
+
+    @Test
+    void testHttpClientIsSharedConcurrently() {
+        Set<HttpClient> clients = ParallelUtil
+                .map(List.of(1, 2, 3, 4, 5, 6, 7, 8), 8, i -> client(false).getHttpClient())
+                .stream()
+                .collect(Collectors.toSet());
+
+        assertEquals(1, clients.size());
+    }
+
+    @Test
+    void testDefaultRequest() {
+        AbstractRestClient client = client(false);
+
+        HttpRequest plain = client.createDefaultGET(URI.create("http://localhost:8080/api/v1/project"));
+        assertEquals(Optional.of(HttpClient.Version.HTTP_1_1), plain.version());
+        assertEquals(Optional.of(Configuration.INSTANCE.getRequestTimeout()), plain.timeout());
+
+        // Version of the shared client, HTTP/2 by default
+        HttpRequest secure = client.createDefaultGET(URI.create("https://localhost:8443/api/v1/project"));
+        assertEquals(Optional.empty(), secure.version());
+    }
+
+}
@@ -33,4 +33,21 @@ class ComparatorFactoryTest {
         assertEquals(-1, c.compare(pa, pb));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void testVersionComparator() {
+        Comparator<Project> c = ComparatorFactory.versionComparator();
+
+        Project pa = new Project();
+        Project pb = new Project();
+
+        pa.setVersion("1.0.9");
+        pb.setVersion("1.0.10");
+        assertTrue(c.compare(pa, pb) < 0);
+
+        pa.setVersion("1.0.0");
+        pb.setVersion("1.0.0-SNAPSHOT");
+        assertTrue(c.compare(pa, pb) > 0);
+    }
+
+}
@@ -3,18 +3,26 @@ package de.elomagic.dttool;
 import de.elomagic.dttool.configuration.Configuration;
 import de.elomagic.dttool.dt.DTrackClient;
 import de.elomagic.dttool.dt.model.Project;
+import de.elomagic.dttool.http.TransferStatistics;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.chrono.ChronoZonedDateTime;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
 import static org.junit.jupiter.api.Assertions.*;
 
 class DTrackClientTest extends AbstractMockedServer {
@@ -43,4 +51,237 @@ class DTrackClientTest extends AbstractMockedServer {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    void testFetchAllProjectsByTotalCount() throws Exception {
+        String apiKey = UUID.randomUUID().toString();
+        String ps = IOUtils.resourceToString("projects.json", StandardCharsets.UTF_8, DTrackClientTest.class.getClassLoader());
+
+        configureFor("localhost", getPort());
+
+        // Three pages of 1000 projects are announced, page 4 must never be requested
+        for (int page = 1; page <= 3; page++) {
+            stubFor(get(urlPathEqualTo("/api/v1/project"))
+                    .withQueryParam("page", equalTo(Integer.toString(page)))
+                    .withHeader("X-Api-Key", equalTo(apiKey))
+                    .willReturn(okJson(ps).withHeader("X-Total-Count", "2500")));
+        }
+
+        Configuration.INSTANCE.setApiKey(apiKey);
+        Configuration.INSTANCE.setBaseUrl("http://localhost:%s".formatted(getPort()));
+
+        DTrackClient dtClient = new DTrackClient();
+        List<Project> projects = dtClient.fetchAllProjects();
+        assertEquals(21, projects.size());
+        assertEquals("TestProject", projects.getFirst().getName());
+        assertEquals("TestProject", projects.get(7).getName());
+
+        verify(3, getRequestedFor(urlPathEqualTo("/api/v1/project")));
+    }
+
+    @Test
+    void testCachedResponses() throws Exception {
+        String apiKey = UUID.randomUUID().toString();
+        String ps = IOUtils.resourceToString("projects.json", StandardCharsets.UTF_8, DTrackClientTest.class.getClassLoader());
+        Path cacheDirectory = Path.of("./target/test/cache");
+        FileUtils.deleteDirectory(cacheDirectory.toFile());
+
+        configureFor("localhost", getPort());
+
+        stubFor(get(urlPathEqualTo("/api/v1/project"))
+                .withQueryParam("page", equalTo("1"))
+                .withHeader("X-Api-Key", equalTo(apiKey))
+                .willReturn(okJson(ps).withHeader("X-Total-Count", "7").withHeader("ETag", "\"v1\"")));
+        stubFor(get(urlPathEqualTo("/api/v1/project"))
+                .withQueryParam("page", equalTo("1"))
+                .withHeader("If-None-Match", equalTo("\"v1\""))
+                .willReturn(status(304)));
+
+        Configuration.INSTANCE.setApiKey(apiKey);
+        Configuration.INSTANCE.setBaseUrl("http://localhost:%s".formatted(getPort()));
+
+        AbstractRestClient client = new DTrackClient();
+        client.cache = true;
+        client.cacheDirectory = cacheDirectory;
+
+        assertEquals(7, ((DTrackClient) client).fetchAllProjects().size());
+        assertEquals(7, ((DTrackClient) client).fetchAllProjects().size());
+        verify(1, getRequestedFor(urlPathEqualTo("/api/v1/project")));
+
+        // Expired entries are revalidated
+        AbstractRestClient expiringClient = new DTrackClient();
+        expiringClient.cache = true;
+        expiringClient.cacheDirectory = cacheDirectory;
+        expiringClient.cacheTtl = 0;
+        assertEquals(7, ((DTrackClient) expiringClient).fetchAllProjects().size());
+        verify(2, getRequestedFor(urlPathEqualTo("/api/v1/project")));
+        verify(1, getRequestedFor(urlPathEqualTo("/api/v1/project")).withHeader("If-None-Match", equalTo("\"v1\"")));
+    }
+
+    @Test
+    void testModificationInvalidatesDependentResponsesOnly() throws Exception {
+        String apiKey = UUID.randomUUID().toString();
+        String ps = IOUtils.resourceToString("projects.json", StandardCharsets.UTF_8, DTrackClientTest.class.getClassLoader());
+        String license = IOUtils.resourceToString("license-apache-2.0.json5", StandardCharsets.UTF_8, DTrackClientTest.class.getClassLoader());
+        Path cacheDirectory = Path.of("./target/test/cache-invalidation");
+        FileUtils.deleteDirectory(cacheDirectory.toFile());
+
+        configureFor("localhost", getPort());
+
+        stubFor(get(urlPathEqualTo("/api/v1/project"))
+                .withQueryParam("page", equalTo("1"))
+                .willReturn(okJson(ps).withHeader("X-Total-Count", "7")));
+        stubFor(get(urlPathEqualTo("/api/v1/license/Apache-2.0"))
+                .willReturn(okJson(license)));
+        stubFor(post(urlPathEqualTo("/api/v1/tag/testTag/project"))
+                .willReturn(noContent()));
+
+        Configuration.INSTANCE.setApiKey(apiKey);
+        Configuration.INSTANCE.setBaseUrl("http://localhost:%s".formatted(getPort()));
+
+        DTrackClient client = new DTrackClient();
+        ((AbstractRestClient) client).cache = true;
+        ((AbstractRestClient) client).cacheDirectory = cacheDirectory;
+
+        client.fetchAllProjects();
+        client.fetchLicenseAsJson("Apache-2.0");
+
+        // Tags are part of the projects, but not of the licenses
+        client.tagProjects("testTag", List.of(UUID.fromString("895425a3-6c1d-465a-9fda-6e21ea7a2035")));
+
+        client.fetchAllProjects();
+        client.fetchLicenseAsJson("Apache-2.0");
+
+        verify(2, getRequestedFor(urlPathEqualTo("/api/v1/project")));
+        verify(1, getRequestedFor(urlPathEqualTo("/api/v1/license/Apache-2.0")));
+    }
+
+    @Test
+    void testRetryWhenUnavailable() throws Exception {
+        String apiKey = UUID.randomUUID().toString();
+        String ps = IOUtils.resourceToString("projects.json", StandardCharsets.UTF_8, DTrackClientTest.class.getClassLoader());
+
+        configureFor("localhost", getPort());
+
+        // First request fails, the retry succeeds
+        stubFor(get(urlPathEqualTo("/api/v1/project"))
+                .inScenario("retry")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(status(503).withHeader("Retry-After", "0"))
+                .willSetStateTo("available"));
+        stubFor(get(urlPathEqualTo("/api/v1/project"))
+                .inScenario("retry")
+                .whenScenarioStateIs("available")
+                .withHeader("X-Api-Key", equalTo(apiKey))
+                .willReturn(okJson(ps).withHeader("X-Total-Count", "7")));
+
+        Configuration.INSTANCE.setApiKey(apiKey);
+        Configuration.INSTANCE.setBaseUrl("http://localhost:%s".formatted(getPort()));
+
+        AbstractRestClient client = new DTrackClient();
+        client.retryDelay = Duration.ofMillis(10);
+
+        assertEquals(7, ((DTrackClient) client).fetchAllProjects().size());
+        verify(2, getRequestedFor(urlPathEqualTo("/api/v1/project")));
+    }
+
+    @Test
+    void testCompressedResponse() throws Exception {
+        String apiKey = UUID.randomUUID().toString();
+        byte[] ps = IOUtils.resourceToByteArray("projects.json", DTrackClientTest.class.getClassLoader());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(ps);
+        }
+
+        configureFor("localhost", getPort());
+
+        stubFor(get(urlPathEqualTo("/api/v1/project"))
+                .withHeader("Accept-Encoding", containing("gzip"))
+                .willReturn(ok()
+                        .withHeader("Content-Type", "application/json")
+                        .withHeader("Content-Encoding", "gzip")
+                        .withBody(out.toByteArray())));
+
+        Configuration.INSTANCE.setApiKey(apiKey);
+        Configuration.INSTANCE.setBaseUrl("http://localhost:%s".formatted(getPort()));
+
+        TransferStatistics.INSTANCE.reset();
+
+        List<Project> projects = new DTrackClient().fetchProjects(10, 1);
+        assertEquals(7, projects.size());
+        assertEquals(ps.length, TransferStatistics.INSTANCE.getDecodedBytes());
+        assertTrue(TransferStatistics.INSTANCE.getReceivedBytes() < ps.length);
+    }
+
+    @Test
+    void testUpdateBom() {
+        String apiKey = UUID.randomUUID().toString();
+        String bom = "{\"bomFormat\":\"CycloneDX\"}";
+
+        configureFor("localhost", getPort());
+
+        stubFor(put(urlPathEqualTo("/api/v1/bom"))
+                .withRequestBody(matchingJsonPath("$.projectName", equalTo("TestProject")))
+                .withRequestBody(matchingJsonPath("$.autoCreate", equalTo("true")))
+                .withRequestBody(matchingJsonPath("$.bom", equalTo(Base64.getEncoder().encodeToString(bom.getBytes(StandardCharsets.UTF_8)))))
+                .willReturn(ok()));
+
+        Configuration.INSTANCE.setApiKey(apiKey);
+        Configuration.INSTANCE.setBaseUrl("http://localhost:%s".formatted(getPort()));
+
+        new DTrackClient().updateBom(bom, "TestProject", "1.0.0");
+
+        verify(1, putRequestedFor(urlPathEqualTo("/api/v1/bom")).withRequestBody(notContaining("\n")));
+    }
+
+    @Test
+    void testUpdateBomCompressed() {
+        String apiKey = UUID.randomUUID().toString();
+
+        configureFor("localhost", getPort());
+
+        stubFor(put(urlPathEqualTo("/api/v1/bom"))
+                .withHeader("Content-Encoding", equalTo("gzip"))
+                .willReturn(ok()));
+
+        Configuration.INSTANCE.setApiKey(apiKey);
+        Configuration.INSTANCE.setBaseUrl("http://localhost:%s".formatted(getPort()));
+
+        DTrackClient client = new DTrackClient();
+        ((AbstractRestClient) client).gzipUpload = true;
+        client.updateBom("{\"bomFormat\":\"CycloneDX\"}", "TestProject", "1.0.0");
+
+        verify(1, putRequestedFor(urlPathEqualTo("/api/v1/bom")).withHeader("Content-Encoding", equalTo("gzip")));
+    }
+
+    @Test
+    void testUpdateBomUncompressedWhenRejected() {
+        String apiKey = UUID.randomUUID().toString();
+        String bom = "{\"bomFormat\":\"CycloneDX\"}";
+
+        configureFor("localhost", getPort());
+
+        stubFor(put(urlPathEqualTo("/api/v1/bom"))
+                .withHeader("Content-Encoding", equalTo("gzip"))
+                .willReturn(status(415)));
+        stubFor(put(urlPathEqualTo("/api/v1/bom"))
+                .withHeader("Content-Encoding", absent())
+                .withRequestBody(matchingJsonPath("$.projectName", equalTo("TestProject")))
+                .willReturn(ok()));
+
+        Configuration.INSTANCE.setApiKey(apiKey);
+        Configuration.INSTANCE.setBaseUrl("http://localhost:%s".formatted(getPort()));
+
+        DTrackClient client = new DTrackClient();
+        ((AbstractRestClient) client).gzipUpload = true;
+        client.updateBom(bom, "TestProject", "1.0.0");
+        // Compression stays disabled for further uploads
+        client.updateBom(bom, "TestProject", "1.0.1");
+
+        verify(3, putRequestedFor(urlPathEqualTo("/api/v1/bom")));
+        verify(1, putRequestedFor(urlPathEqualTo("/api/v1/bom")).withHeader("Content-Encoding", equalTo("gzip")));
+        verify(2, putRequestedFor(urlPathEqualTo("/api/v1/bom")).withHeader("Content-Encoding", absent()));
+    }
+
+}
@@ -0,0 +1,66 @@
+package de.elomagic.dttool;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DecimalFormatterTest {
+
+    @Test
+    void testFormat() {
+        DecimalFormatter formatter = new DecimalFormatter(',', Locale.US);
+
+        assertThat(formatter.format(0)).isEqualTo("0,00");
+        assertThat(formatter.format(0.125)).isEqualTo("0,12");
+        assertThat(formatter.format(0.135)).isEqualTo("0,14");
+        assertThat(formatter.format(2.675)).isEqualTo("2,67");
+        assertThat(formatter.format(-1.5)).isEqualTo("-1,50");
+        assertThat(formatter.format(123456789.125)).isEqualTo("123456789,12");
+    }
+
+    @Test
+    void testParityWithDecimalFormat() {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.GERMANY);
+        symbols.setDecimalSeparator('.');
+        DecimalFormat decimalFormat = new DecimalFormat("#0.00", symbols);
+        DecimalFormatter formatter = new DecimalFormatter('.', Locale.GERMANY);
+
+        Random random = new Random(4711);
+        for (int i = 0; i < 100_000; i++) {
+            double value = random.nextInt(1_000_000) / 1000.0;
+            assertThat(formatter.format(value)).isEqualTo(decimalFormat.format(value));
+
+            value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12));
+            assertThat(formatter.format(value)).isEqualTo(decimalFormat.format(value));
+        }
+    }
+
+    /**
+     * Ties, values of the slow path and special values, in locales with other digits and minus signs.
+     */
+    @Test
+    void testParityOfEdgeCases() {
+        double[] values = {
+                0.005, 0.015, 0.025, 0.045, 1.005, 1.115, 2.345, 10.675, -0.005, -2.675,
+                9_999_999.995, 12_345_678.905, 1e15 + 0.25, Long.MAX_VALUE, 1e300,
+                -0.0, -0.001, Double.MIN_VALUE, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY
+        };
+
+        for (Locale locale : new Locale[] { Locale.US, Locale.GERMANY, Locale.forLanguageTag("ar-EG"), Locale.forLanguageTag("fa-IR"), Locale.forLanguageTag("sv-SE") }) {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            symbols.setDecimalSeparator(';');
+            DecimalFormat decimalFormat = new DecimalFormat("#0.00", symbols);
+            DecimalFormatter formatter = new DecimalFormatter(';', locale);
+
+            for (double value : values) {
+                assertThat(formatter.format(value)).isEqualTo(decimalFormat.format(value));
+            }
+        }
+    }
+
+}
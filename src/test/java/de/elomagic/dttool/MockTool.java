@@ -18,6 +18,7 @@ public class MockTool {
 
         String apiKey = UUID.randomUUID().toString();
         String projects = IOUtils.resourceToString("projects.json", StandardCharsets.UTF_8, DTrackClientTest.class.getClassLoader());
+        String project = IOUtils.resourceToString("project-895425a3-6c1d-465a-9fda-6e21ea7a2035.json5", StandardCharsets.UTF_8, DTrackClientTest.class.getClassLoader());
         String bom = IOUtils.resourceToString("bom-example.json", StandardCharsets.UTF_8, DTrackClientTest.class.getClassLoader());
 
         Configuration.INSTANCE.setApiKey(apiKey);
@@ -35,6 +36,11 @@ public class MockTool {
                 .withHeader("X-Api-Key", equalTo(apiKey))
                 .willReturn(okJson("[]")));
 
+        // When download a single project
+        stubFor(get(urlPathEqualTo("/api/v1/project/895425a3-6c1d-465a-9fda-6e21ea7a2035"))
+                .withHeader("X-Api-Key", equalTo(apiKey))
+                .willReturn(okJson(project)));
+
         // When delete project
         stubFor(delete(urlPathMatching("/api/v1/project/.*"))
                 .withHeader("X-Api-Key", equalTo(apiKey))
@@ -53,6 +59,11 @@ public class MockTool {
                 //.withRequestBody(or(equalToJson("[\"01d558ae-5075-4cbb-94ea-73ce6ae23532\"]"), equalToJson("[\"01d558ae-5075-4cbb-94ea-73ce6ae23999\"]")))
                 .willReturn(noContent()));
 
+        // When untag projects
+        stubFor(delete(urlPathEqualTo("/api/v1/tag/sample-a/project"))
+                .withHeader("X-Api-Key", equalTo(apiKey))
+                .willReturn(noContent()));
+
         // When download projects
         stubFor(get(urlPathMatching("/api/v1/bom/cyclonedx/project/.*"))
                 .withQueryParam("download", equalTo("false"))
@@ -0,0 +1,63 @@
+package de.elomagic.dttool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelUtilTest {
+
+    @Test
+    void testMapKeepsOrderAndLimitsParallelism() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> items = IntStream.range(0, 100).boxed().toList();
+
+        List<Integer> results = ParallelUtil.map(items, 4, i -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(i % 3);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return i * 2;
+        });
+
+        assertEquals(IntStream.range(0, 100).map(i -> i * 2).boxed().toList(), results);
+        assertTrue(maxRunning.get() <= 4);
+    }
+
+    @Test
+    void testStopOnFirstFailure() {
+        AtomicInteger started = new AtomicInteger();
+        List<Integer> items = IntStream.range(0, 1000).boxed().toList();
+
+        DtToolException ex = assertThrows(DtToolException.class, () -> ParallelUtil.forEach(items, 2, i -> {
+            started.incrementAndGet();
+            if (i == 5) {
+                throw new DtToolException("Failed " + i);
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        assertEquals("Failed 5", ex.getMessage());
+        assertTrue(started.get() < 20, "Started tasks: " + started.get());
+    }
+
+    @Test
+    void testPartition() {
+        assertEquals(List.of(List.of(1, 2), List.of(3)), ParallelUtil.partition(List.of(1, 2, 3), 2));
+        assertEquals(List.of(), ParallelUtil.partition(List.of(), 2));
+    }
+
+}
@@ -0,0 +1,139 @@
+package de.elomagic.dttool.commands;
+
+import de.elomagic.dttool.JsonMapperFactory;
+import de.elomagic.dttool.dt.model.Project;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BomManifestTest {
+
+    private static Project project(String uuid) throws IOException {
+        return JsonMapperFactory
+                .reader(Project.class)
+                .readValue("{\"uuid\":\"%s\",\"name\":\"p\",\"version\":\"1.0\",\"lastBomImport\":\"1517198568503\"}".formatted(uuid));
+    }
+
+    private static Path folder(String name) throws IOException {
+        Path folder = Path.of("./target/test/" + name);
+        FileUtils.deleteDirectory(folder.toFile());
+        Files.createDirectories(folder);
+        return folder;
+    }
+
+    private static void write(BomManifest manifest, Project project, Path file, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        Files.write(file, bytes);
+
+        MessageDigest digest = BomManifest.newDigest();
+        digest.update(bytes);
+        manifest.put(project, file.getFileName().toString(), BomManifest.toHex(digest), bytes.length, BomManifest.lastModified(file));
+    }
+
+    @Test
+    void testUpToDateVerifiesHash() throws IOException {
+        Path folder = folder("manifest-hash");
+        Project project = project("895425a3-6c1d-465a-9fda-6e21ea7a2035");
+
+        BomManifest manifest = new BomManifest();
+        write(manifest, project, folder.resolve("bom.json"), "{\"bomFormat\":\"CycloneDX\"}");
+
+        assertTrue(manifest.isUpToDate(project, folder, false));
+        assertTrue(manifest.isUpToDate(project, folder, true));
+
+        // Modified locally
+        Files.writeString(folder.resolve("bom.json"), "{\"bomFormat\":\"Corrupted\"}");
+        Files.setLastModifiedTime(folder.resolve("bom.json"), FileTime.from(Instant.now().plusSeconds(60)));
+        assertFalse(manifest.isUpToDate(project, folder, false));
+
+        Files.delete(folder.resolve("bom.json"));
+        assertFalse(manifest.isUpToDate(project, folder, false));
+    }
+
+    @Test
+    void testUpToDateHashesOnlyChangedAttributes() throws IOException {
+        Path folder = folder("manifest-attributes");
+        Path file = folder.resolve("bom.json");
+        Project project = project("895425a3-6c1d-465a-9fda-6e21ea7a2035");
+
+        BomManifest manifest = new BomManifest();
+        write(manifest, project, file, "{\"bomFormat\":\"CycloneDX\"}");
+        FileTime lastModified = Files.getLastModifiedTime(file);
+
+        // Same size and modification time, so only a verification detects the modification
+        Files.writeString(file, "{\"bomFormat\":\"Corrupted\"}");
+        Files.setLastModifiedTime(file, lastModified);
+        assertTrue(manifest.isUpToDate(project, folder, false));
+        assertFalse(manifest.isUpToDate(project, folder, true));
+
+        // Touched, but unchanged content
+        Files.writeString(file, "{\"bomFormat\":\"CycloneDX\"}");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+        assertTrue(manifest.isUpToDate(project, folder, false));
+        assertEquals(BomManifest.lastModified(file), manifest.get(project.getUuid()).orElseThrow().lastModified());
+    }
+
+    @Test
+    void testUpToDateOfManifestWithoutAttributes() throws IOException {
+        Path folder = folder("manifest-without-attributes");
+        Project project = project("895425a3-6c1d-465a-9fda-6e21ea7a2035");
+
+        BomManifest manifest = new BomManifest();
+        write(manifest, project, folder.resolve("bom.json"), "{}");
+        String sha256 = manifest.get(project.getUuid()).orElseThrow().sha256();
+
+        // Manifest of a previous version
+        Files.writeString(folder.resolve("manifest.json"), """
+                [{"uuid":"895425a3-6c1d-465a-9fda-6e21ea7a2035","lastBomImport":1517198568503,"sha256":"%s","file":"bom.json"}]
+                """.formatted(sha256));
+
+        manifest = BomManifest.load(folder.resolve("manifest.json"));
+        assertTrue(manifest.isUpToDate(project, folder, false));
+        assertEquals(2, manifest.get(project.getUuid()).orElseThrow().size());
+    }
+
+    @Test
+    void testUpToDateAfterReload() throws IOException {
+        Path folder = folder("manifest-reload");
+        Project project = project("895425a3-6c1d-465a-9fda-6e21ea7a2035");
+
+        BomManifest manifest = new BomManifest();
+        write(manifest, project, folder.resolve("bom.json"), "{}");
+        manifest.save(folder.resolve("manifest.json"));
+
+        assertTrue(BomManifest.load(folder.resolve("manifest.json")).isUpToDate(project, folder, false));
+        assertFalse(BomManifest.load(folder.resolve("manifest.json")).isUpToDate(project("0571fd6e-f746-4f7f-b9e0-3a2badeda85b"), folder, false));
+    }
+
+    @Test
+    void testSharedFileIsReferencedUntilLastProjectIsRemoved() throws IOException {
+        Project a = project("895425a3-6c1d-465a-9fda-6e21ea7a2035");
+        Project b = project("0571fd6e-f746-4f7f-b9e0-3a2badeda85b");
+
+        BomManifest manifest = new BomManifest();
+        assertEquals(Optional.empty(), manifest.put(a, "bom.json", "aa", 2, 0));
+        assertEquals(Optional.empty(), manifest.put(b, "bom.json", "bb", 2, 0));
+
+        assertEquals(1, manifest.retainAll(List.of(b)).size());
+        assertTrue(manifest.isReferenced("bom.json"));
+
+        assertEquals(Optional.of("bom.json"), manifest.put(b, "bom-b.json", "bb", 2, 0));
+        assertFalse(manifest.isReferenced("bom.json"));
+        assertTrue(manifest.isReferenced("bom-b.json"));
+    }
+
+}
@@ -71,4 +71,48 @@ class CheckLicensesCommandTest extends AbstractMockedServer {
 
         // TODO Assert successful patch
     }
-}
\ No newline at end of file
+
+    @Test
+    void testScanProjectsConcurrently() throws IOException {
+        String projects = IOUtils.resourceToString("projects.json", StandardCharsets.UTF_8, CheckLicensesCommandTest.class.getClassLoader());
+        String comps = IOUtils.resourceToString("components-01.json5", StandardCharsets.UTF_8, CheckLicensesCommandTest.class.getClassLoader());
+        String apiKey = UUID.randomUUID().toString();
+
+        configureFor("localhost", getPort());
+
+        stubFor(get(urlPathEqualTo("/api/v1/project"))
+                .withQueryParam("page", equalTo("1"))
+                .withHeader("X-Api-Key", equalTo(apiKey))
+                .willReturn(okJson(projects)));
+        stubFor(get(urlPathEqualTo("/api/v1/project"))
+                .withQueryParam("page", equalTo("2"))
+                .withHeader("X-Api-Key", equalTo(apiKey))
+                .willReturn(okJson("[]")));
+
+        stubFor(get(urlPathMatching("/api/v1/component/project/.*"))
+                .withQueryParam("page", equalTo("1"))
+                .withHeader("X-Api-Key", equalTo(apiKey))
+                .willReturn(okJson(comps).withFixedDelay(50)));
+        stubFor(get(urlPathMatching("/api/v1/component/project/.*"))
+                .withQueryParam("page", equalTo("2"))
+                .withHeader("X-Api-Key", equalTo(apiKey))
+                .willReturn(okJson("[]")));
+
+        App app = new App();
+        int exitCode = app.execute(new String[]{
+                "check-licenses",
+                "--apiKey=" + apiKey,
+                "--baseUrl=http://localhost:%s".formatted(getPort()),
+                "--notBeforeDays=36500",
+                "--notAfterDays=0",
+                "--parallelism=3"});
+
+        assertEquals(0, exitCode);
+
+        // Every project version is scanned exactly once
+        verify(7, getRequestedFor(urlPathMatching("/api/v1/component/project/.*")).withQueryParam("page", equalTo("1")));
+        verify(2, getRequestedFor(urlPathEqualTo("/api/v1/component/project/0571fd6e-f746-4f7f-b9e0-3a2badeda85b")).withQueryParam("page", equalTo("1")));
+        verify(0, postRequestedFor(urlPathEqualTo("/api/v1/component")));
+    }
+
+}
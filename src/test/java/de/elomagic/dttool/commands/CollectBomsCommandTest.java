@@ -4,11 +4,16 @@ import de.elomagic.dttool.AbstractMockedServer;
 import de.elomagic.dttool.App;
 import de.elomagic.dttool.MockTool;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.Test;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.stream.Stream;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -25,4 +30,62 @@ class CollectBomsCommandTest extends AbstractMockedServer {
         });
     }
 
+    @Test
+    void testCollectIntoFolder() throws Throwable {
+        MockTool.mockServer(getPort(), () -> {
+            App app = new App();
+            int exitCode = app.execute(new String[] { "collect-boms", "--filePattern=bom-%s1-%s2.json", "--file=./target/test/sboms", "-pf=895425a3-6c1d-465a-9fda-6e21ea7a2035", "--parallelism=2" });
+
+            assertEquals(0, exitCode);
+            assertTrue(Files.exists(Path.of("./target/test/sboms/bom-ExampleApp1-1.0.02.json")));
+        });
+    }
+
+    @Test
+    void testCollectCollidingFilenamesIntoFolder() throws Throwable {
+        Path folder = Path.of("./target/test/colliding-sboms");
+        FileUtils.deleteDirectory(folder.toFile());
+
+        MockTool.mockServer(getPort(), () -> {
+            App app = new App();
+            // All projects return the same BOM, so the pattern creates the same filename for each of them
+            int exitCode = app.execute(new String[] { "collect-boms", "--filePattern=bom-%s1-%s2.json", "--file=" + folder, "--parallelism=4" });
+
+            assertEquals(0, exitCode);
+            try (Stream<Path> files = Files.list(folder)) {
+                assertEquals(6, files.count());
+            }
+            assertTrue(Files.exists(folder.resolve("bom-ExampleApp1-1.0.02.json")));
+        });
+    }
+
+    @Test
+    void testCollectRawIntoFolder() throws Throwable {
+        MockTool.mockServer(getPort(), () -> {
+            App app = new App();
+            int exitCode = app.execute(new String[] { "collect-boms", "--raw", "--filePattern=raw-%s-%s.json", "--file=./target/test/raw-sboms", "-pf=895425a3-6c1d-465a-9fda-6e21ea7a2035" });
+
+            assertEquals(0, exitCode);
+            assertTrue(Files.size(Path.of("./target/test/raw-sboms/raw-TestLatestVersion1-1.0.0.0.json")) > 1000);
+        });
+    }
+
+    @Test
+    void testCollectIncremental() throws Throwable {
+        Path folder = Path.of("./target/test/incremental-sboms");
+        FileUtils.deleteDirectory(folder.toFile());
+
+        MockTool.mockServer(getPort(), () -> {
+            String[] args = new String[] { "collect-boms", "--incremental", "--filePattern=bom-%s1-%s2.json", "--file=" + folder, "-pf=895425a3-6c1d-465a-9fda-6e21ea7a2035" };
+
+            assertEquals(0, new App().execute(args));
+            assertEquals(0, new App().execute(args));
+
+            assertTrue(Files.exists(folder.resolve("bom-ExampleApp1-1.0.02.json")));
+            assertTrue(Files.exists(folder.resolve(".dt-tool-manifest.json")));
+            // Second run must not fetch the unchanged BOM again
+            verify(1, getRequestedFor(urlPathMatching("/api/v1/bom/cyclonedx/project/.*")));
+        });
+    }
+
 }
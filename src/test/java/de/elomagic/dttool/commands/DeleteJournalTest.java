@@ -0,0 +1,61 @@
+package de.elomagic.dttool.commands;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeleteJournalTest {
+
+    private static final UUID A = UUID.fromString("895425a3-6c1d-465a-9fda-6e21ea7a2035");
+    private static final UUID B = UUID.fromString("0571fd6e-f746-4f7f-b9e0-3a2badeda85b");
+
+    private static Path journal(String name, String content) throws IOException {
+        Path file = Path.of("./target/test/" + name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    void testResumeWithTruncatedDoneLine() throws IOException {
+        Path file = journal("delete-truncated-done.journal", """
+                PLANNED\t895425a3-6c1d-465a-9fda-6e21ea7a2035\tTestProjectOld\t1.0.0.1-SNAPSHOT
+                PLANNED\t0571fd6e-f746-4f7f-b9e0-3a2badeda85b\tTestProjectOld\t1.0.0.2-SNAPSHOT
+                DONE\t895425a3-6c1d""");
+
+        try (DeleteJournal journal = DeleteJournal.open(file)) {
+            assertEquals(List.of(A, B), journal.getPending().stream().map(DeleteJournal.Entry::uuid).toList());
+
+            journal.done(A);
+        }
+
+        // Record of the resumed run is not appended to the truncated line
+        assertTrue(Files.readAllLines(file).contains("DONE\t" + A));
+        try (DeleteJournal journal = DeleteJournal.open(file)) {
+            assertEquals(List.of(B), journal.getPending().stream().map(DeleteJournal.Entry::uuid).toList());
+        }
+    }
+
+    @Test
+    void testResumeWithTruncatedLastGroup() throws IOException {
+        // UUID.fromString would accept the shortened last group
+        Path file = journal("delete-truncated-group.journal", """
+                PLANNED\t895425a3-6c1d-465a-9fda-6e21ea7a2035\tTestProjectOld\t1.0.0.1-SNAPSHOT
+                PLANNED\t0571fd6e-f746-4f7f-b9e0-3a2badeda85b\tTestProjectOld\t1.0.0.2-SNAPSHOT
+                DONE\t895425a3-6c1d-465a-9fda-6e21ea7a2035
+                PLANNED\t0571fd6e-f746-4f7f-b9e0-3a2b""");
+
+        try (DeleteJournal journal = DeleteJournal.open(file)) {
+            assertEquals(List.of(B), journal.getPending().stream().map(DeleteJournal.Entry::uuid).toList());
+        }
+    }
+
+}
@@ -6,7 +6,18 @@ import de.elomagic.dttool.MockTool;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.deleteRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DeleteProjectsCommandTest extends AbstractMockedServer {
 
@@ -14,10 +25,52 @@ class DeleteProjectsCommandTest extends AbstractMockedServer {
     void testDeleteProject() throws Throwable {
         MockTool.mockServer(getPort(), () -> {
             App app = new App();
-            int exitCode = app.execute(new String[] { "delete-projects", "--notAfterDays=999", "-b" });
+            int exitCode = app.execute(new String[] { "delete-projects", "--notAfterDays=999", "-b", "--journal=./target/test/delete-projects-new.journal" });
 
             assertEquals(0, exitCode);
         });
     }
 
+    @Test
+    void testRefuseDeleteWithPendingJournal() throws Throwable {
+        Path journal = Path.of("./target/test/delete-projects-pending.journal");
+        Files.createDirectories(journal.getParent());
+        Files.write(journal, List.of("PLANNED\t895425a3-6c1d-465a-9fda-6e21ea7a2035\tTestProjectOld\t1.0.0.1-SNAPSHOT"));
+
+        MockTool.mockServer(getPort(), () -> {
+            App app = new App();
+            int exitCode = app.execute(new String[] { "delete-projects", "--notAfterDays=999", "-b", "--journal", journal.toString() });
+
+            assertEquals(1, exitCode);
+            verify(0, deleteRequestedFor(urlPathMatching("/api/v1/project/.*")));
+        });
+
+        // Pending projects are kept for a resume
+        assertTrue(Files.readString(journal).contains("895425a3-6c1d-465a-9fda-6e21ea7a2035"));
+    }
+
+    @Test
+    void testResumeDelete() throws Throwable {
+        Path journal = Path.of("./target/test/delete-projects.journal");
+        Files.createDirectories(journal.getParent());
+        Files.write(journal, List.of(
+                "PLANNED\t01d558ae-5075-4cbb-94ea-73ce6ae23532\tTestProject\t1.0.0.1",
+                "PLANNED\t895425a3-6c1d-465a-9fda-6e21ea7a2035\tTestProjectOld\t1.0.0.1-SNAPSHOT",
+                "DONE\t01d558ae-5075-4cbb-94ea-73ce6ae23532"));
+
+        MockTool.mockServer(getPort(), () -> {
+            App app = new App();
+            int exitCode = app.execute(new String[] { "delete-projects", "-b", "--resume", "--journal", journal.toString() });
+
+            assertEquals(0, exitCode);
+
+            // Only the pending project is deleted, without fetching the projects
+            verify(1, deleteRequestedFor(urlPathMatching("/api/v1/project/.*")));
+            verify(deleteRequestedFor(urlPathEqualTo("/api/v1/project/895425a3-6c1d-465a-9fda-6e21ea7a2035")));
+            verify(0, getRequestedFor(urlPathEqualTo("/api/v1/project")));
+        });
+
+        assertFalse(Files.exists(journal));
+    }
+
 }
@@ -17,6 +17,9 @@ import java.nio.file.Path;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -83,6 +86,33 @@ class FetchProjectsCommandTest extends AbstractMockedServer {
         });
     }
 
+    @Test
+    void testFetchByUuidWithoutFullScan() throws Throwable {
+        MockTool.mockServer(getPort(), () -> {
+            LOGGER.info("ABC6");
+            App app = new App();
+            int exitCode = app.execute(new String[] { "fetch-projects", "--projectFilter=895425a3-6c1d-465a-9fda-6e21ea7a2035", "-nad=30", "--format=VERSION" });
+            LOGGER.info("ABC6");
+
+            assertEquals(0, exitCode);
+            assertThat(getText("ABC6")).contains("1.0.0.0");
+            verify(0, getRequestedFor(urlPathEqualTo("/api/v1/project")));
+        });
+    }
+
+    @Test
+    void testNdjson() throws Throwable {
+        MockTool.mockServer(getPort(), () -> {
+            LOGGER.info("ABC7");
+            App app = new App();
+            int exitCode = app.execute(new String[] { "fetch-projects", "--projectFilter=TestLatestVersion1", "-nad=30", "--format=NDJSON" });
+            LOGGER.info("ABC7");
+
+            assertEquals(0, exitCode);
+            assertThat(getText("ABC7")).contains("{\"uuid\":\"85b0f240-b405-4d61-a10a-42f54b6ad59e\",\"name\":\"TestLatestVersion1\",\"version\":\"1.0.0.1\"");
+        });
+    }
+
     private String getText(String s) throws IOException {
 
         String logText = readLog();
@@ -0,0 +1,94 @@
+package de.elomagic.dttool.commands;
+
+import de.elomagic.dttool.JsonMapperFactory;
+import de.elomagic.dttool.TimeUtil;
+import de.elomagic.dttool.dt.model.Project;
+import de.elomagic.dttool.dto.ReportDTO;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProjectMetricsSnapshotTest {
+
+    private static Project project(String name, LocalDate bomImport, int critical, int high, float riskScore) throws IOException {
+        String json = "{\"name\":\"%s\",\"lastBomImport\":\"%s\",\"metrics\":{\"critical\":%s,\"high\":%s,\"medium\":1,\"low\":2,\"unassigned\":3,\"inheritedRiskScore\":%s}}"
+                .formatted(name, bomImport.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli(), critical, high, riskScore);
+        return JsonMapperFactory.reader(Project.class).readValue(json);
+    }
+
+    @Test
+    void testSummarize() throws IOException {
+        ZonedDateTime reportDate = ZonedDateTime.now();
+        ProjectMetricsSnapshot snapshot = new ProjectMetricsSnapshot();
+
+        snapshot.add(project("a", LocalDate.of(2024, 1, 3), 1, 4, 10));
+        snapshot.add(project("a", LocalDate.of(2024, 1, 28), 3, 0, 20));
+        snapshot.add(project("a", LocalDate.of(2024, 2, 1), 5, 5, 30));
+        snapshot.add(project("b", LocalDate.of(2024, 1, 15), 0, 2, 5));
+
+        Map<String, Map<String, ReportDTO>> reports = snapshot.summarize(reportDate);
+
+        assertEquals(4, snapshot.size());
+        assertEquals(List.of("2024-01", "2024-02"), reports.keySet().stream().sorted().toList());
+        assertEquals(new ReportDTO("2024-01", "a", reportDate, 15, 2, 2, 1, 2, 3), reports.get("2024-01").get("a"));
+        assertEquals(new ReportDTO("2024-01", "b", reportDate, 5, 0, 2, 1, 2, 3), reports.get("2024-01").get("b"));
+        assertEquals(new ReportDTO("2024-02", "a", reportDate, 30, 5, 5, 1, 2, 3), reports.get("2024-02").get("a"));
+    }
+
+    @Test
+    void testSummarizeInOffsetOfServer() throws IOException {
+        ZonedDateTime reportDate = ZonedDateTime.now();
+        ProjectMetricsSnapshot snapshot = new ProjectMetricsSnapshot();
+
+        // Still May in UTC, but June in the offset of the server
+        snapshot.add(JsonMapperFactory
+                .reader(Project.class)
+                .readValue("{\"name\":\"a\",\"lastBomImport\":\"2024-06-01T00:30:00+02:00\",\"metrics\":{\"critical\":1}}"));
+
+        assertEquals(List.of("2024-06"), List.copyOf(snapshot.summarize(reportDate).keySet()));
+    }
+
+    /**
+     * More projects and groups than the initial capacities, compared to a straightforward grouping of the projects.
+     */
+    @Test
+    void testSummarizeManyGroups() throws IOException {
+        ZonedDateTime reportDate = ZonedDateTime.now();
+        ProjectMetricsSnapshot snapshot = new ProjectMetricsSnapshot();
+        List<Project> projects = new ArrayList<>();
+
+        for (int i = 0; i < 5_000; i++) {
+            Project project = project("project-" + i % 37, LocalDate.of(2020 + i % 3, 1 + i % 12, 1 + i % 28), i % 7, i % 11, i % 13);
+            projects.add(project);
+            snapshot.add(project);
+        }
+
+        Map<String, Map<String, ReportDTO>> reports = snapshot.summarize(reportDate);
+
+        Map<String, Map<String, Double>> expectedCritical = projects
+                .stream()
+                .collect(Collectors.groupingBy(
+                        p -> TimeUtil.toMonthPattern(p.getLastBomImport().toLocalDate()),
+                        Collectors.groupingBy(Project::getName, Collectors.averagingInt(p -> p.getMetrics().getCritical()))));
+        Map<String, Map<String, Double>> actualCritical = reports
+                .entrySet()
+                .stream()
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey,
+                        e -> e.getValue().values().stream().collect(Collectors.toMap(ReportDTO::projectName, ReportDTO::averageCritical))));
+
+        assertEquals(5_000, snapshot.size());
+        assertEquals(expectedCritical, actualCritical);
+    }
+
+}
@@ -0,0 +1,67 @@
+package de.elomagic.dttool.commands;
+
+import de.elomagic.dttool.ParallelUtil;
+import de.elomagic.dttool.dt.model.Component;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PurlIndexTest {
+
+    private static Component component(String purl) {
+        Component component = new Component();
+        component.setUuid(UUID.randomUUID());
+        component.setPurl(purl);
+        return component;
+    }
+
+    @Test
+    void testDeduplicateConcurrently() {
+        PurlIndex index = new PurlIndex();
+        List<Component> components = IntStream
+                .range(0, 1000)
+                .mapToObj(i -> component(i % 10 == 0 ? null : "pkg:maven/org.example/lib-%s@1.0".formatted(i % 5)))
+                .toList();
+
+        ParallelUtil.forEach(components, 16, index::add);
+
+        // 5 distinct purls and 100 components without purl, which are never merged
+        assertEquals(105, index.entries().size());
+        assertEquals(1000, index.componentCount());
+
+        List<PurlIndex.Entry> withPurl = index
+                .entries()
+                .stream()
+                .filter(e -> e.purl() != null)
+                .sorted(Comparator.comparing(PurlIndex.Entry::purl))
+                .toList();
+
+        assertEquals(List.of(100, 200, 200, 200, 200), withPurl.stream().map(e -> e.occurrences().size()).toList());
+        withPurl.forEach(e -> {
+            assertTrue(e.occurrences().contains(e.component()));
+            assertTrue(e.occurrences().stream().allMatch(c -> e.purl().equals(c.getPurl())));
+        });
+
+        index.entries().stream().filter(e -> e.purl() == null).forEach(e -> {
+            assertNull(e.component().getPurl());
+            assertEquals(List.of(e.component()), e.occurrences());
+        });
+    }
+
+    @Test
+    void testEmpty() {
+        PurlIndex index = new PurlIndex();
+
+        assertTrue(index.isEmpty());
+        assertEquals(0, index.componentCount());
+    }
+
+}
@@ -0,0 +1,37 @@
+package de.elomagic.dttool.commands;
+
+import de.elomagic.dttool.DecimalFormatter;
+import de.elomagic.dttool.dto.ReportDTO;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.RecordComponent;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReportCsvWriterTest {
+
+    @Test
+    void testColumnsMatchRecordComponents() throws IOException {
+        ZonedDateTime reportDate = ZonedDateTime.parse("2024-03-01T10:15:30+01:00[Europe/Berlin]");
+        StringWriter out = new StringWriter();
+        ReportCsvWriter writer = new ReportCsvWriter(out, ";", new DecimalFormatter(',', Locale.GERMANY));
+
+        writer.writeHeader();
+        writer.write(new ReportDTO("2024-02", "project", reportDate, 1.5, 2, 3.125, 4.126, 0, 6));
+
+        String[] lines = out.toString().split("\n");
+        String header = Arrays.stream(ReportDTO.class.getRecordComponents()).map(RecordComponent::getName).collect(Collectors.joining(";"));
+
+        assertEquals(2, lines.length);
+        assertEquals(header, lines[0]);
+        assertEquals("2024-02;project;" + reportDate + ";1,50;2,00;3,12;4,13;0,00;6,00", lines[1]);
+    }
+
+}
@@ -52,4 +52,17 @@ class ReportExportCommandTest extends AbstractMockedServer {
         });
     }
 
+    @Test
+    void testWriteNdjson() throws Throwable {
+        MockTool.mockServer(getPort(), () -> {
+            App app = new App();
+            int exitCode = app.execute(new String[]{"report", "-nbd=4365", "--file=./target/test/report.ndjson", "--format=NDJSON"});
+
+            assertEquals(0, exitCode);
+            assertThat(Files.readAllLines(Path.of("./target/test/report.ndjson"), StandardCharsets.UTF_8))
+                    .hasSize(2)
+                    .allMatch(line -> line.startsWith("{\"flooredBomDate\":\"2018-0") && line.endsWith("}"));
+        });
+    }
+
 }
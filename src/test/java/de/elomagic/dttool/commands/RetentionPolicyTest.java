@@ -0,0 +1,126 @@
+package de.elomagic.dttool.commands;
+
+import de.elomagic.dttool.DtToolException;
+import de.elomagic.dttool.JsonMapperFactory;
+import de.elomagic.dttool.configuration.model.LatestBy;
+import de.elomagic.dttool.configuration.model.RetentionRule;
+import de.elomagic.dttool.dt.model.Project;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetentionPolicyTest {
+
+    private static final ZonedDateTime NOW = ZonedDateTime.parse("2024-06-01T00:00:00Z");
+
+    private static Project project(String name, String version, int ageDays, String... tags) throws IOException {
+        String tagsJson = Stream.of(tags).map("{\"name\":\"%s\"}"::formatted).reduce((a, b) -> a + "," + b).orElse("");
+        String json = "{\"name\":\"%s\",\"version\":\"%s\",\"lastBomImport\":%s,\"tags\":[%s]}"
+                .formatted(name, version, NOW.minusDays(ageDays).toInstant().toEpochMilli(), tagsJson);
+        return JsonMapperFactory.reader(Project.class).readValue(json);
+    }
+
+    private static List<String> plan(List<RetentionRule> rules, Project... projects) {
+        return new RetentionPolicy(rules)
+                .plan(Stream.of(projects), NOW)
+                .stream()
+                .map(p -> p.getName() + ":" + p.getVersion())
+                .toList();
+    }
+
+    @Test
+    void testKeepNewestTagsAndAge() throws IOException {
+        RetentionRule rule = new RetentionRule();
+        rule.setMatchName("service-.*");
+        rule.setMatchVersion(".*-SNAPSHOT");
+        rule.setKeepNewest(2);
+        rule.setKeepTags(Set.of("production"));
+        rule.setOlderThanDays(30);
+
+        List<String> plan = plan(
+                List.of(rule),
+                project("service-a", "1.0.5-SNAPSHOT", 100),
+                project("service-a", "1.0.4-SNAPSHOT", 100),
+                project("service-a", "1.0.3-SNAPSHOT", 100, "production"),
+                project("service-a", "1.0.2-SNAPSHOT", 10),
+                project("service-a", "1.0.1-SNAPSHOT", 100),
+                project("service-a", "1.0.0", 100),
+                project("service-b", "2.0.0-SNAPSHOT", 100),
+                project("service-b", "1.0.0-SNAPSHOT", 100),
+                project("service-b", "0.9.0-SNAPSHOT", 100),
+                project("other", "1.0.0-SNAPSHOT", 100));
+
+        assertEquals(List.of("service-a:1.0.1-SNAPSHOT", "service-b:0.9.0-SNAPSHOT"), plan);
+    }
+
+    @Test
+    void testFirstRuleMatchingNameApplies() throws IOException {
+        RetentionRule keep = new RetentionRule();
+        keep.setMatchName("important");
+        keep.setKeepNewest(Integer.MAX_VALUE);
+
+        RetentionRule newestByImport = new RetentionRule();
+        newestByImport.setKeepNewest(1);
+        newestByImport.setNewestBy(LatestBy.LAST_BOM_IMPORT);
+
+        List<String> plan = plan(
+                List.of(keep, newestByImport),
+                project("important", "1.0.0", 100),
+                project("important", "2.0.0", 1),
+                project("app", "2.0.0", 50),
+                project("app", "1.0.0", 5));
+
+        assertEquals(List.of("app:2.0.0"), plan);
+    }
+
+    @Test
+    void testKeepNewestByDefault() throws IOException {
+        RetentionRule rule = new RetentionRule();
+        rule.setMatchName("app");
+
+        List<String> plan = plan(
+                List.of(rule),
+                project("app", "1.0.0", 100),
+                project("app", "3.0.0", 100),
+                project("app", "2.0.0", 100));
+
+        assertEquals(List.of("app:2.0.0", "app:1.0.0"), plan);
+    }
+
+    @Test
+    void testRejectRuleDeletingAllVersions() {
+        RetentionRule rule = new RetentionRule();
+        rule.setMatchName("app");
+        rule.setKeepNewest(0);
+
+        DtToolException ex = assertThrows(DtToolException.class, () -> new RetentionPolicy(List.of(rule)));
+        assertTrue(ex.getMessage().contains("would delete all versions"));
+
+        rule.setMatchVersion(".*");
+        assertThrows(DtToolException.class, () -> new RetentionPolicy(List.of(rule)));
+
+        // Restricted by version or age
+        rule.setMatchVersion(".*-SNAPSHOT");
+        assertDoesNotThrow(() -> new RetentionPolicy(List.of(rule)));
+
+        rule.setMatchVersion(null);
+        rule.setOlderThanDays(30);
+        assertDoesNotThrow(() -> new RetentionPolicy(List.of(rule)));
+    }
+
+    @Test
+    void testWithoutRules() throws IOException {
+        assertTrue(plan(List.of(), project("app", "1.0.0-SNAPSHOT", 100)).isEmpty());
+    }
+
+}
@@ -1,12 +1,23 @@
 package de.elomagic.dttool.commands;
 
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+
 import de.elomagic.dttool.AbstractMockedServer;
 import de.elomagic.dttool.App;
 import de.elomagic.dttool.MockTool;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.deleteRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.findAll;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TagProjectsCommandTest extends AbstractMockedServer {
 
@@ -20,4 +31,21 @@ class TagProjectsCommandTest extends AbstractMockedServer {
         });
     }
 
+    @Test
+    void testReplaceTagInChunks() throws Throwable {
+        MockTool.mockServer(getPort(), () -> {
+            App app = new App();
+            int exitCode = app.execute(new String[] { "tag-projects", "--notAfterDays=999", "-b", "--tag", "testTag", "--removeTag", "sample-a", "--chunkSize", "2" });
+
+            assertEquals(0, exitCode);
+
+            // Every request contains a chunk of up to two projects
+            List<LoggedRequest> tagRequests = findAll(postRequestedFor(urlPathEqualTo("/api/v1/tag/testTag/project")));
+            assertFalse(tagRequests.isEmpty());
+            tagRequests.forEach(r -> assertTrue(r.getBodyAsString().split(",").length <= 2));
+
+            verify(deleteRequestedFor(urlPathEqualTo("/api/v1/tag/sample-a/project")));
+        });
+    }
+
 }
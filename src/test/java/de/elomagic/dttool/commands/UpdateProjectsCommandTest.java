@@ -6,6 +6,14 @@ import de.elomagic.dttool.MockTool;
 
 import org.junit.jupiter.api.Test;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.matchingJsonPath;
+import static com.github.tomakehurst.wiremock.client.WireMock.noContent;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class UpdateProjectsCommandTest extends AbstractMockedServer {
@@ -20,4 +28,37 @@ class UpdateProjectsCommandTest extends AbstractMockedServer {
         });
     }
 
+    @Test
+    void testSkipUnchangedProjects() throws Throwable {
+        MockTool.mockServer(getPort(), () -> {
+            App app = new App();
+            // Flags of all projects have already the requested values
+            int exitCode = app.execute(new String[]{"update-projects", "--notAfterDays=999", "-b", "--active=false", "--latest=false"});
+
+            assertEquals(0, exitCode);
+
+            verify(0, postRequestedFor(urlPathEqualTo("/api/v1/project")));
+        });
+    }
+
+    @Test
+    void testAutoLatest() throws Throwable {
+        MockTool.mockServer(getPort(), () -> {
+            stubFor(post(urlPathEqualTo("/api/v1/project"))
+                    .withRequestBody(matchingJsonPath("$.isLatest", equalTo("true")))
+                    .willReturn(noContent()));
+
+            App app = new App();
+            int exitCode = app.execute(new String[]{"update-projects", "--notAfterDays=999", "-b", "--autoLatest", "--versionMatch=^\\d+(\\.\\d+)*$"});
+
+            assertEquals(0, exitCode);
+
+            // Latest releases of TestProject and TestLatestVersion1
+            verify(2, postRequestedFor(urlPathEqualTo("/api/v1/project")));
+            verify(postRequestedFor(urlPathEqualTo("/api/v1/project"))
+                    .withRequestBody(matchingJsonPath("$.uuid", equalTo("85b0f240-b405-4d61-a10a-42f54b6ad59e")))
+                    .withRequestBody(matchingJsonPath("$.isLatest", equalTo("true"))));
+        });
+    }
+
 }
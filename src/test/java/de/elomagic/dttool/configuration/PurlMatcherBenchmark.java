@@ -0,0 +1,69 @@
+package de.elomagic.dttool.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Micro benchmark of many patch rules against many purls compared to {@link String#matches(String)}.
+ * <p>
+ * Not part of the unit tests, because timings depend on the machine. Run it manually with the test classpath, e.g.
+ * {@code java -cp target/classes:target/test-classes de.elomagic.dttool.configuration.PurlMatcherBenchmark [rules] [purls]}.
+ */
+public final class PurlMatcherBenchmark {
+
+    private static final int WARM_UP_ROUNDS = 2;
+    private static final int ROUNDS = 5;
+
+    private PurlMatcherBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int ruleCount = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int purlCount = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < ruleCount; i++) {
+            patterns.add("pkg:maven/org\\.example%s/artifact-%s@.*".formatted(i % 40, i));
+        }
+
+        List<String> purls = new ArrayList<>();
+        for (int i = 0; i < purlCount; i++) {
+            purls.add("pkg:maven/org.example%s/artifact-%s@1.0.%s".formatted(i % 40, i % (ruleCount * 2), i));
+        }
+
+        PurlMatcher<String> matcher = PurlMatcher.compile(patterns, s -> s);
+
+        Function<String, Optional<String>> naive = p -> patterns.stream().filter(p::matches).findFirst();
+
+        System.out.printf("%s rules, %s purls%n", ruleCount, purlCount);
+        System.out.printf("String.matches: %,.0f ns/op%n", measure(purls, naive));
+        System.out.printf("PurlMatcher:    %,.0f ns/op%n", measure(purls, matcher::findFirst));
+    }
+
+    private static double measure(List<String> purls, Function<String, Optional<String>> findFirst) {
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+            run(purls, findFirst);
+        }
+
+        long matches = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            matches += run(purls, findFirst);
+        }
+        long nanos = System.nanoTime() - start;
+
+        // Uses the result, so the JIT can't drop the calls
+        if (matches < 0) {
+            System.out.println(matches);
+        }
+
+        return (double) nanos / ((long) ROUNDS * purls.size());
+    }
+
+    private static long run(List<String> purls, Function<String, Optional<String>> findFirst) {
+        return purls.stream().map(findFirst).filter(Optional::isPresent).count();
+    }
+
+}
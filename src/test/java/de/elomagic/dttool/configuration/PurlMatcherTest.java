@@ -0,0 +1,97 @@
+package de.elomagic.dttool.configuration;
+
+import de.elomagic.dttool.configuration.model.PatchRule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PurlMatcherTest {
+
+    private static final List<String> PATTERNS = List.of(
+            "pkg:maven/org\\.apache\\..*",
+            "^pkg:maven/org\\.apache\\.commons/.*",
+            "pkg:npm/.*",
+            ".*jackson.*",
+            "pkg:maven/a?b.*",
+            "pkg:maven/(foo|bar)/.*",
+            "pkg:maven/x|pkg:npm/y",
+            "pkg:maven/org\\.slf4j/slf4j-api@1\\.7\\.36",
+            "pkg:nuget/.+"
+    );
+
+    @Test
+    void testLiteralPrefix() {
+        assertEquals("pkg:maven/org.apache.", PurlMatcher.literalPrefix("pkg:maven/org\\.apache\\..*"));
+        assertEquals("pkg:maven/org.apache.commons/", PurlMatcher.literalPrefix("^pkg:maven/org\\.apache\\.commons/.*"));
+        assertEquals("pkg:maven/", PurlMatcher.literalPrefix("pkg:maven/a?b.*"));
+        assertEquals("pkg:nuget/", PurlMatcher.literalPrefix("pkg:nuget/.+"));
+        assertEquals("", PurlMatcher.literalPrefix(".*jackson.*"));
+        assertEquals("", PurlMatcher.literalPrefix("pkg:maven/x|pkg:npm/y"));
+    }
+
+    @Test
+    void testFindFirstLikeStringMatches() {
+        PurlMatcher<String> matcher = PurlMatcher.compile(PATTERNS, s -> s);
+
+        List<String> purls = List.of(
+                "pkg:maven/org.apache.commons/commons-lang3@3.17.0",
+                "pkg:npm/y",
+                "pkg:npm/left-pad@1.3.0",
+                "pkg:maven/x",
+                "pkg:maven/com.fasterxml.jackson.core/jackson-databind@2.21.1",
+                "pkg:maven/b",
+                "pkg:maven/ab",
+                "pkg:maven/foo/x",
+                "pkg:maven/org.slf4j/slf4j-api@1.7.36",
+                "pkg:nuget/abc",
+                "pkg:nuget/",
+                "pkg:golang/x",
+                "pkg:maven/orgXapache.x"
+        );
+
+        for (String purl : purls) {
+            assertEquals(PATTERNS.stream().filter(purl::matches).findFirst(), matcher.findFirst(purl), purl);
+        }
+    }
+
+    @Test
+    void testPatchRules() {
+        PatchRule apache = new PatchRule("pkg:maven/org\\.apache\\..*", "Apache-2.0");
+        PatchRule mit = new PatchRule("pkg:npm/.*", "MIT");
+
+        PurlMatcher<PatchRule> matcher = PurlMatcher.compile(List.of(apache, mit), PatchRule::getMatchPurl);
+
+        assertEquals(Optional.of(apache), matcher.findFirst("pkg:maven/org.apache.commons/commons-lang3@3.17.0"));
+        assertEquals(Optional.of(mit), matcher.findFirst("pkg:npm/left-pad@1.3.0"));
+        assertEquals(Optional.empty(), matcher.findFirst("pkg:maven/com.google.guava/guava@33.0.0"));
+    }
+
+    /**
+     * 400 patch rules against 5.000 purls return the same results as {@link String#matches(String)}.
+     */
+    @Test
+    void testManyRulesLikeStringMatches() {
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            patterns.add("pkg:maven/org\\.example%s/artifact-%s@.*".formatted(i % 40, i));
+        }
+
+        List<String> purls = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            purls.add("pkg:maven/org.example%s/artifact-%s@1.%s.0".formatted(i % 40, i % 800, i));
+        }
+
+        PurlMatcher<String> matcher = PurlMatcher.compile(patterns, s -> s);
+
+        List<Optional<String>> naive = purls.stream().map(p -> patterns.stream().filter(p::matches).findFirst()).toList();
+        List<Optional<String>> compiled = purls.stream().map(matcher::findFirst).toList();
+
+        assertEquals(naive, compiled);
+    }
+
+}
@@ -0,0 +1,216 @@
+package de.elomagic.dttool.dt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import de.elomagic.dttool.DtToolException;
+import de.elomagic.dttool.JsonMapperFactory;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.net.ssl.SSLSession;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PageIteratorTest {
+
+    private static final int LIMIT = 3;
+
+    /**
+     * Fake server of {@code total} items with ids starting from 0, which records requested pages and closed bodies.
+     */
+    private static final class Pages implements IntFunction<HttpResponse<InputStream>> {
+
+        private final int total;
+        private final boolean totalCountHeader;
+        private final Set<Integer> requested = ConcurrentHashMap.newKeySet();
+        private final Set<Integer> closed = ConcurrentHashMap.newKeySet();
+        private final Map<Integer, String> bodies = new ConcurrentHashMap<>();
+        private int failingPage = -1;
+
+        private Pages(int total, boolean totalCountHeader) {
+            this.total = total;
+            this.totalCountHeader = totalCountHeader;
+        }
+
+        @Override
+        public HttpResponse<InputStream> apply(int page) {
+            requested.add(page);
+            if (page == failingPage) {
+                throw new DtToolException("Page %s failed".formatted(page));
+            }
+
+            String json = bodies.getOrDefault(page, IntStream.range((page - 1) * LIMIT, Math.min(total, page * LIMIT))
+                    .mapToObj("{\"id\":%s}"::formatted)
+                    .collect(Collectors.joining(",", "[", "]")));
+
+            InputStream body = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)) {
+                @Override
+                public void close() {
+                    closed.add(page);
+                }
+            };
+
+            Map<String, List<String>> headers = totalCountHeader ? Map.of("X-Total-Count", List.of(Integer.toString(total))) : Map.of();
+
+            return new Response(body, HttpHeaders.of(headers, (k, v) -> true));
+        }
+
+    }
+
+    private record Response(InputStream body, HttpHeaders headers) implements HttpResponse<InputStream> {
+        @Override
+        public int statusCode() {
+            return 200;
+        }
+
+        @Override
+        public HttpRequest request() {
+            return HttpRequest.newBuilder(uri()).build();
+        }
+
+        @Override
+        public Optional<HttpResponse<InputStream>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return URI.create("http://localhost/api/v1/project");
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+
+    private static List<Integer> ids(PageIterator<JsonNode> iterator) {
+        List<Integer> ids = new ArrayList<>();
+        iterator.forEachRemaining(node -> ids.add(node.get("id").asInt()));
+        return ids;
+    }
+
+    @Test
+    void testOrderWithTotalCount() {
+        Pages pages = new Pages(11, true);
+
+        List<Integer> ids = ids(new PageIterator<>(pages, JsonMapperFactory.reader(JsonNode.class), LIMIT, 4));
+
+        assertEquals(IntStream.range(0, 11).boxed().toList(), ids);
+        // Last page is known by the total count, so no empty page is requested
+        assertEquals(Set.of(1, 2, 3, 4), pages.requested);
+    }
+
+    @Test
+    void testOrderWithoutTotalCount() {
+        Pages pages = new Pages(6, false);
+
+        List<Integer> ids = ids(new PageIterator<>(pages, JsonMapperFactory.reader(JsonNode.class), LIMIT, 4));
+
+        assertEquals(IntStream.range(0, 6).boxed().toList(), ids);
+        // Pages are requested one after another until the empty page 3
+        assertEquals(Set.of(1, 2, 3), pages.requested);
+    }
+
+    @Test
+    void testPrefetchWindow() {
+        Pages pages = new Pages(30, true);
+        PageIterator<JsonNode> iterator = new PageIterator<>(pages, JsonMapperFactory.reader(JsonNode.class), LIMIT, 2);
+
+        iterator.next();
+        assertTrue(pages.requested.size() <= 3, "Requested pages: " + pages.requested);
+
+        for (int i = 1; i < LIMIT * 4; i++) {
+            iterator.next();
+        }
+        // Page 5 is read, page 6 and 7 might be prefetched
+        assertTrue(pages.requested.stream().allMatch(p -> p <= 7), "Requested pages: " + pages.requested);
+
+        iterator.close();
+    }
+
+    @Test
+    void testEarlyClose() {
+        Pages pages = new Pages(30, true);
+        PageIterator<JsonNode> iterator = new PageIterator<>(pages, JsonMapperFactory.reader(JsonNode.class), LIMIT, 4);
+
+        assertEquals(0, iterator.next().get("id").asInt());
+        iterator.close();
+
+        assertFalse(iterator.hasNext());
+        // The current page and every prefetched page which has arrived are released
+        assertTrue(pages.closed.contains(1));
+        assertTrue(pages.requested.stream().allMatch(p -> p <= 5), "Requested pages: " + pages.requested);
+    }
+
+    @Test
+    void testPageFailureMidStream() {
+        Pages pages = new Pages(30, true);
+        pages.failingPage = 3;
+        PageIterator<JsonNode> iterator = new PageIterator<>(pages, JsonMapperFactory.reader(JsonNode.class), LIMIT, 2);
+
+        List<Integer> ids = new ArrayList<>();
+        DtToolException ex = assertThrows(DtToolException.class, () -> iterator.forEachRemaining(node -> ids.add(node.get("id").asInt())));
+
+        assertEquals("Page 3 failed", ex.getMessage());
+        // Items of the pages before the failed page are delivered in order
+        assertEquals(IntStream.range(0, 6).boxed().toList(), ids);
+        iterator.close();
+    }
+
+    @Test
+    void testUnexpectedItemReleasesPages() {
+        Pages pages = new Pages(30, true);
+        pages.bodies.put(3, "[{\"id\":6},7]");
+        PageIterator<JsonNode> iterator = new PageIterator<>(pages, JsonMapperFactory.reader(JsonNode.class), LIMIT, 2);
+
+        List<Integer> ids = new ArrayList<>();
+        DtToolException ex = assertThrows(DtToolException.class, () -> iterator.forEachRemaining(node -> ids.add(node.get("id").asInt())));
+
+        assertEquals("Unexpected response of page 3, JSON object expected.", ex.getMessage());
+        assertEquals(IntStream.range(0, 7).boxed().toList(), ids);
+        // Released without closing the iterator
+        assertTrue(pages.closed.contains(3));
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void testUnexpectedPageReleasesPages() {
+        Pages pages = new Pages(30, true);
+        pages.bodies.put(2, "{\"error\":\"unexpected\"}");
+        PageIterator<JsonNode> iterator = new PageIterator<>(pages, JsonMapperFactory.reader(JsonNode.class), LIMIT, 2);
+
+        DtToolException ex = assertThrows(DtToolException.class, () -> iterator.forEachRemaining(node -> {}));
+
+        assertEquals("Unexpected response of page 2, JSON array expected.", ex.getMessage());
+        assertTrue(pages.closed.contains(2));
+        assertFalse(iterator.hasNext());
+    }
+
+}
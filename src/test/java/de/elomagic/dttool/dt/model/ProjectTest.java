@@ -0,0 +1,68 @@
+package de.elomagic.dttool.dt.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import de.elomagic.dttool.JsonMapperFactory;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectTest {
+
+    private static Project read(String json) throws IOException {
+        return JsonMapperFactory.reader(Project.class).readValue(json);
+    }
+
+    private static JsonNode write(Project project) throws IOException {
+        return JsonMapperFactory.reader(JsonNode.class).readValue(JsonMapperFactory.writer().writeValueAsString(project));
+    }
+
+    @Test
+    void testLastBomImportEpochMillis() throws IOException {
+        Project project = read("{\"name\":\"p\",\"lastBomImport\":\"1517198568503\"}");
+
+        assertEquals(1517198568503L, project.getLastBomImportEpochMillis());
+        assertEquals("1517198568503", write(project).get("lastBomImport").asText());
+
+        project = read("{\"name\":\"p\",\"lastBomImport\":1517198568503}");
+
+        assertEquals(1517198568503L, project.getLastBomImportEpochMillis());
+        assertEquals("1517198568503", write(project).get("lastBomImport").asText());
+    }
+
+    @Test
+    void testLastBomImportIsoDateTimeIsSerializedUnchanged() throws IOException {
+        Project project = read("{\"name\":\"p\",\"lastBomImport\":\"2018-01-29T04:22:48.503+01:00\"}");
+
+        assertEquals(Instant.parse("2018-01-29T03:22:48.503Z").toEpochMilli(), project.getLastBomImportEpochMillis());
+        assertEquals("2018-01-29T04:22:48.503+01:00", write(project).get("lastBomImport").asText());
+    }
+
+    @Test
+    void testLastBomImportKeepsOffset() throws IOException {
+        // Already June in the offset of the server, but still May in UTC
+        Project project = read("{\"name\":\"p\",\"lastBomImport\":\"2024-06-01T00:30:00+02:00\"}");
+
+        assertEquals(ZonedDateTime.parse("2024-06-01T00:30:00+02:00"), project.getLastBomImport());
+        assertEquals(ZoneOffset.ofHours(2), project.getLastBomImport().getOffset());
+        assertEquals(6, project.getLastBomImport().getMonthValue());
+        assertEquals(Instant.parse("2024-05-31T22:30:00Z").toEpochMilli(), project.getLastBomImportEpochMillis());
+    }
+
+    @Test
+    void testLastBomImportUnset() throws IOException {
+        Project project = read("{\"name\":\"p\"}");
+
+        assertFalse(project.hasLastBomImport());
+        assertTrue(write(project).get("lastBomImport").isNull());
+    }
+
+}
@@ -0,0 +1,214 @@
+package de.elomagic.dttool.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContentEncodingTest {
+
+    private static final byte[] CONTENT = IntStream
+            .range(0, 20_000)
+            .mapToObj("{\"name\":\"component-%s\"}"::formatted)
+            .collect(Collectors.joining(",", "[", "]"))
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] content, boolean raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+            deflate.write(content);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Passes the body in small buffers through the decoding handler, so headers and trailers are split.
+     */
+    private static byte[] decode(String encoding, byte[] body) throws ExecutionException, InterruptedException {
+        HttpResponse.ResponseInfo info = new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return 200;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return HttpHeaders.of(Map.of("Content-Encoding", List.of(encoding)), (name, value) -> true);
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        };
+
+        HttpResponse.BodySubscriber<byte[]> subscriber = ContentEncoding
+                .decoding(HttpResponse.BodyHandlers.ofByteArray())
+                .apply(info);
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                // noop
+            }
+
+            @Override
+            public void cancel() {
+                // noop
+            }
+        });
+
+        for (int i = 0; i < body.length; i += 7) {
+            subscriber.onNext(List.of(ByteBuffer.wrap(Arrays.copyOfRange(body, i, Math.min(body.length, i + 7)))));
+        }
+        subscriber.onComplete();
+
+        return subscriber.getBody().toCompletableFuture().get();
+    }
+
+    private static Throwable decodeFailure(String encoding, byte[] body) {
+        return assertThrows(ExecutionException.class, () -> decode(encoding, body)).getCause();
+    }
+
+    @Test
+    void testGzip() throws Exception {
+        TransferStatistics.INSTANCE.reset();
+
+        byte[] body = gzip(CONTENT);
+        assertArrayEquals(CONTENT, decode("gzip", body));
+        assertEquals(body.length, TransferStatistics.INSTANCE.getReceivedBytes());
+        assertEquals(CONTENT.length, TransferStatistics.INSTANCE.getDecodedBytes());
+    }
+
+    @Test
+    void testGzipMultipleMembers() throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(gzip(Arrays.copyOfRange(CONTENT, 0, 1000)));
+        body.write(gzip(Arrays.copyOfRange(CONTENT, 1000, CONTENT.length)));
+
+        assertArrayEquals(CONTENT, decode("x-gzip", body.toByteArray()));
+    }
+
+    @Test
+    void testDeflate() throws Exception {
+        assertArrayEquals(CONTENT, decode("deflate", deflate(CONTENT, false)));
+        // Some servers send a raw deflate stream without the zlib wrapper
+        assertArrayEquals(CONTENT, decode("deflate", deflate(CONTENT, true)));
+    }
+
+    @Test
+    void testIdentity() throws Exception {
+        assertArrayEquals(CONTENT, decode("identity", CONTENT));
+    }
+
+    @Test
+    void testTruncated() throws Exception {
+        byte[] body = gzip(CONTENT);
+
+        // In the trailer
+        assertInstanceOf(EOFException.class, decodeFailure("gzip", Arrays.copyOf(body, body.length - 4)));
+        // In the compressed data
+        assertInstanceOf(EOFException.class, decodeFailure("gzip", Arrays.copyOf(body, body.length / 2)));
+        // In the header
+        assertInstanceOf(EOFException.class, decodeFailure("gzip", Arrays.copyOf(body, 5)));
+
+        byte[] deflated = deflate(CONTENT, false);
+        assertInstanceOf(EOFException.class, decodeFailure("deflate", Arrays.copyOf(deflated, deflated.length / 2)));
+    }
+
+    @Test
+    void testCorrupt() throws Exception {
+        byte[] body = gzip(CONTENT);
+
+        byte[] crcMismatch = body.clone();
+        crcMismatch[body.length - 8] ^= 0x01;
+        assertInstanceOf(ZipException.class, decodeFailure("gzip", crcMismatch));
+
+        byte[] sizeMismatch = body.clone();
+        sizeMismatch[body.length - 1] ^= 0x01;
+        assertInstanceOf(ZipException.class, decodeFailure("gzip", sizeMismatch));
+
+        assertInstanceOf(ZipException.class, decodeFailure("gzip", CONTENT));
+
+        byte[] corruptData = body.clone();
+        corruptData[20] ^= (byte) 0xff;
+        corruptData[21] ^= (byte) 0xff;
+        assertInstanceOf(ZipException.class, decodeFailure("gzip", corruptData));
+    }
+
+    @Test
+    void testGzipRequestBody() throws Exception {
+        List<byte[]> chunks = IntStream
+                .range(0, CONTENT.length / 1000 + 1)
+                .mapToObj(i -> Arrays.copyOfRange(CONTENT, i * 1000, Math.min(CONTENT.length, (i + 1) * 1000)))
+                .toList();
+        Iterable<byte[]> compressed = ContentEncoding.gzip(chunks);
+
+        // Iterable several times, e.g. when a request is repeated
+        for (int run = 0; run < 2; run++) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            compressed.forEach(body::writeBytes);
+
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+                assertArrayEquals(CONTENT, in.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void testGzipRequestBodyFailure() {
+        Iterator<byte[]> failing = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public byte[] next() {
+                throw new IllegalStateException("Unable to read BOM");
+            }
+        };
+
+        Iterator<byte[]> compressed = ContentEncoding.gzip(() -> failing).iterator();
+
+        assertThrows(IllegalStateException.class, compressed::next);
+        assertFalse(compressed.hasNext());
+    }
+
+}
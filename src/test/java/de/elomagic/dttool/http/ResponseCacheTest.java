@@ -0,0 +1,131 @@
+package de.elomagic.dttool.http;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheTest {
+
+    private static final String BASE_URL = "http://localhost:8080/dtrack";
+
+    private static Path directory(String name) throws IOException {
+        Path directory = Path.of("./target/test/" + name);
+        FileUtils.deleteDirectory(directory.toFile());
+        return directory;
+    }
+
+    private static String store(ResponseCache cache, String path) {
+        return store(cache, path, Map.of());
+    }
+
+    private static String store(ResponseCache cache, String path, Map<String, List<String>> headers) {
+        URI uri = URI.create(BASE_URL + path);
+        String key = ResponseCache.key("key", uri);
+
+        HttpResponse.ResponseInfo info = new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return 200;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return HttpHeaders.of(headers, (name, value) -> true);
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        };
+
+        HttpResponse.BodySubscriber<String> subscriber = cache
+                .storingHandler(key, uri, HttpResponse.BodyHandlers.ofString())
+                .apply(info);
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                // noop
+            }
+
+            @Override
+            public void cancel() {
+                // noop
+            }
+        });
+        subscriber.onNext(List.of(ByteBuffer.wrap("[]".getBytes(StandardCharsets.UTF_8))));
+        subscriber.onComplete();
+
+        return key;
+    }
+
+    @Test
+    void testInvalidateModifiedPaths() throws IOException {
+        ResponseCache cache = new ResponseCache(directory("cache-invalidate"), Duration.ofMinutes(5), 1024 * 1024);
+
+        String projects = store(cache, "/api/v1/project?page=1");
+        String project = store(cache, "/api/v1/project/895425a3-6c1d-465a-9fda-6e21ea7a2035");
+        String components = store(cache, "/api/v1/component/project/895425a3-6c1d-465a-9fda-6e21ea7a2035");
+        String license = store(cache, "/api/v1/license/Apache-2.0");
+        String projectsSimilar = store(cache, "/api/v1/projects");
+
+        cache.invalidate(List.of("/dtrack/api/v1/project", "/dtrack/api/v1/tag"));
+
+        assertFalse(cache.get(projects).isPresent());
+        assertFalse(cache.get(project).isPresent());
+        assertTrue(cache.get(components).isPresent());
+        assertTrue(cache.get(license).isPresent());
+        assertTrue(cache.get(projectsSimilar).isPresent());
+    }
+
+    @Test
+    void testSkippedHeadersInTurkishLocale() throws Exception {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            ResponseCache cache = new ResponseCache(directory("cache-headers"), Duration.ofMinutes(5), 1024 * 1024);
+            String key = store(cache, "/api/v1/project", Map.of("KEEP-ALIVE", List.of("timeout=5"), "ETag", List.of("\"1\"")));
+
+            HttpRequest request = HttpRequest.newBuilder(URI.create(BASE_URL + "/api/v1/project")).build();
+            HttpHeaders headers = cache.get(key).orElseThrow().toResponse(request, HttpResponse.BodyHandlers.ofString()).headers();
+
+            assertFalse(headers.firstValue("Keep-Alive").isPresent());
+            assertTrue(headers.firstValue("ETag").isPresent());
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    void testInvalidateEntriesOfPreviousRun() throws IOException {
+        Path directory = directory("cache-invalidate-previous");
+
+        ResponseCache previous = new ResponseCache(directory, Duration.ofMinutes(5), 1024 * 1024);
+        String component = store(previous, "/api/v1/component/34012ff4-a94d-44d2-bdc4-4aa63577d96f");
+        String license = store(previous, "/api/v1/license/Apache-2.0");
+
+        ResponseCache cache = new ResponseCache(directory, Duration.ofMinutes(5), 1024 * 1024);
+        cache.invalidate(List.of("/dtrack/api/v1/component"));
+
+        assertFalse(cache.get(component).isPresent());
+        assertTrue(cache.get(license).isPresent());
+    }
+
+}
@@ -0,0 +1,53 @@
+package de.elomagic.dttool.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+    @Test
+    void testIsRetryable() {
+        RetryPolicy policy = new RetryPolicy(2, Duration.ofMillis(100));
+
+        assertTrue(policy.isRetryable("GET", 0));
+        assertTrue(policy.isRetryable("DELETE", 1));
+        assertFalse(policy.isRetryable("GET", 2));
+        assertFalse(policy.isRetryable("POST", 0));
+        // Upload of a BOM
+        assertFalse(policy.isRetryable("PUT", 0));
+
+        assertTrue(RetryPolicy.isRetryableStatus(503));
+        assertFalse(RetryPolicy.isRetryableStatus(500));
+    }
+
+    @Test
+    void testDelay() {
+        RetryPolicy policy = new RetryPolicy(5, Duration.ofMillis(100));
+
+        assertThat(policy.delay(0, null)).isBetween(Duration.ofMillis(50), Duration.ofMillis(100));
+        assertThat(policy.delay(3, null)).isBetween(Duration.ofMillis(400), Duration.ofMillis(800));
+        assertEquals(Duration.ofSeconds(7), policy.delay(0, "7"));
+        assertEquals(Duration.ofMinutes(2), policy.delay(0, "86400"));
+    }
+
+    @Test
+    void testParseRetryAfter() {
+        assertNull(RetryPolicy.parseRetryAfter(null));
+        assertNull(RetryPolicy.parseRetryAfter("soon"));
+        assertEquals(Duration.ofSeconds(120), RetryPolicy.parseRetryAfter("120"));
+
+        String date = ZonedDateTime.now().plusSeconds(30).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        assertThat(RetryPolicy.parseRetryAfter(date)).isBetween(Duration.ofSeconds(25), Duration.ofSeconds(30));
+        assertEquals(Duration.ZERO, RetryPolicy.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+    }
+
+}